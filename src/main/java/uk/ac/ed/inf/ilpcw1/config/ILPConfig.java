@@ -1,26 +1,105 @@
 package uk.ac.ed.inf.ilpcw1.config;
 
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties({ReferenceDataProperties.class, IlpHttpProperties.class, StandInProperties.class,
+        PathfindingProperties.class})
 public class ILPConfig {
 
     private static final String DEFAULT_ILP_ENDPOINT = "https://ilp-rest-2025-bvh6e9hschfagrgy.ukwest-01.azurewebsites.net/";
 
+    /**
+     * Base URL of the ILP REST service: the ILP_ENDPOINT environment variable, else the
+     * {@code ilp.endpoint} property (set by the ilp-stand-in profile), else the hosted service
+     * @param configured value of {@code ilp.endpoint}, may be empty
+     * @return endpoint URL ending in a slash
+     */
     @Bean
-    public String ilpEndpoint() {
+    public String ilpEndpoint(@Value("${ilp.endpoint:}") String configured) {
         String endpoint = System.getenv("ILP_ENDPOINT");
-        return (endpoint != null && !endpoint.isEmpty()) ? endpoint : DEFAULT_ILP_ENDPOINT;
+        if (endpoint != null && !endpoint.isEmpty()) {
+            return endpoint;
+        }
+        return !configured.isEmpty() ? configured : DEFAULT_ILP_ENDPOINT;
+    }
+
+    /**
+     * Pool of persistent (keep-alive) connections to the ILP REST service
+     * @param http transport settings
+     * @return connection manager shared by all ILP requests
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager ilpConnectionManager(IlpHttpProperties http) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(http.getConnectionTimeToLive()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Apache HTTP client on top of the connection pool.
+     * Content compression is left enabled, so requests advertise gzip/deflate and
+     * compressed responses are decoded transparently.
+     * @param connectionManager pooled connection manager
+     * @param http transport settings
+     * @return HTTP client for the ILP REST service
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient ilpHttpClient(PoolingHttpClientConnectionManager connectionManager, IlpHttpProperties http) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getMaxIdleTime()))
+                .build();
+    }
+
+    /**
+     * Publish pool statistics (leased, available, pending, max) as metrics
+     * @param connectionManager pooled connection manager
+     * @return meter binder for the ILP connection pool
+     */
+    @Bean
+    public PoolingHttpClientConnectionManagerMetricsBinder ilpConnectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "ilp");
     }
 
     /**
-     * Configure RestTemplate bean for making HTTP requests
+     * Configure RestTemplate bean for making HTTP requests.
+     * Built through the Boot builder so request timings are recorded as http.client.requests.
      * @return RestTemplate instance
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient ilpHttpClient) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(ilpHttpClient))
+                .build();
     }
 }
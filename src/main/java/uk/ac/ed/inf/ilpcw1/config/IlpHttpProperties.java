@@ -0,0 +1,49 @@
+package uk.ac.ed.inf.ilpcw1.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the pooled HTTP transport used to call the ILP REST service (prefix {@code ilp.http})
+ */
+@Data
+@ConfigurationProperties(prefix = "ilp.http")
+public class IlpHttpProperties {
+
+    /**
+     * Time allowed to establish a TCP/TLS connection
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Socket read timeout once connected
+     */
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Time to wait for a free connection from the pool
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Maximum number of pooled connections in total
+     */
+    private int maxConnections = 50;
+
+    /**
+     * Maximum number of pooled connections to the ILP host
+     */
+    private int maxConnectionsPerRoute = 20;
+
+    /**
+     * Maximum lifetime of a persistent connection
+     */
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Idle connections older than this are evicted from the pool
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+}
@@ -0,0 +1,103 @@
+package uk.ac.ed.inf.ilpcw1.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the drone path search (prefix {@code ilp.pathfinding})
+ */
+@Data
+@ConfigurationProperties(prefix = "ilp.pathfinding")
+public class PathfindingProperties {
+
+    /**
+     * Whether legs whose straight line is blocked use obstacle-avoiding distances over the
+     * no-fly-zone visibility graph as the search heuristic
+     */
+    private boolean visibilityHeuristic = true;
+
+    /**
+     * Threads building zone geometry in the background: visibility graphs too large to build
+     * with the zones, and reachability fields. Searches and range checks use plain distances
+     * until it is ready
+     */
+    private int backgroundThreads = 2;
+
+    /**
+     * Whether the search heuristic is raised to the ALT bound from obstacle-avoiding distances
+     * to a few landmarks around the zones, precomputed once per set of restricted areas. The
+     * visibility heuristic is already exact where it applies, so this mainly helps without it
+     */
+    private boolean landmarkHeuristic = false;
+
+    /**
+     * Half-width, in moves, of the corridor around the obstacle-avoiding route that such legs
+     * are searched in first; if no path is found inside it the leg is searched again without
+     * it. Zero disables the corridor
+     */
+    private double corridorWidth = 8;
+
+    /**
+     * Total moves the cache of computed flight legs may hold before least recently used legs
+     * are evicted; each leg counts its moves plus one. Zero disables the cache
+     */
+    private long legCacheMaxMoves = 250_000;
+
+    /**
+     * Most idle search workspaces kept for reuse. Each holds the node arrays, visited map and
+     * open heap grown by earlier searches, so a leg normally allocates none of them; size it
+     * to the number of legs searched at once. Zero allocates fresh storage for every search
+     */
+    private int workspacePoolSize = 8;
+
+    /**
+     * Default search budget: most nodes one leg's search may expand
+     */
+    private int maxExpansions = 100_000;
+
+    /**
+     * Default search budget: wall-clock limit on one leg's search; zero for none
+     */
+    private Duration searchTimeLimit = Duration.ZERO;
+
+    /**
+     * Default search budget: heuristic weight of the first round of the anytime search. Above 1
+     * a first, possibly longer, path is found quickly and then improved while budget remains;
+     * 1 runs a single A* search
+     */
+    private double initialWeight = 1;
+
+    /**
+     * Whether long legs are searched from both ends at once (plain A* only, not anytime mode).
+     * Fewer nodes are expanded, but a path may come back a move longer than the shortest
+     */
+    private boolean bidirectional = false;
+
+    /**
+     * Straight-line length, in moves, from which a leg counts as long for the bidirectional search
+     */
+    private double bidirectionalMinMoves = 30;
+
+    /**
+     * Whether lattice nodes with no zone within a move of them only try the directions next to
+     * the one they were reached by, skipping symmetric orderings of the same moves. Random legs
+     * get paths as short as without it, but with lattice points merged into cells that is not
+     * proven for every leg
+     */
+    private boolean symmetryPruning = false;
+
+    /**
+     * Whether a grid of obstacle-avoiding distances around each service point is built in the
+     * background once per set of restricted areas, so drones out of range of a delivery are
+     * rejected without searching for their route
+     */
+    private boolean reachabilityFields = true;
+
+    /**
+     * Whether a leg whose straight line is clear of the zones is given a shortest path worked
+     * out directly, without searching, when one can be
+     */
+    private boolean directLegs = true;
+}
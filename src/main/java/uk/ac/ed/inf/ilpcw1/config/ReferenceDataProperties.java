@@ -0,0 +1,85 @@
+package uk.ac.ed.inf.ilpcw1.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for fetching the ILP reference data (prefix {@code ilp.reference-data})
+ */
+@Data
+@ConfigurationProperties(prefix = "ilp.reference-data")
+public class ReferenceDataProperties {
+
+    /**
+     * Maximum time a single upstream resource fetch may take
+     */
+    private Duration resourceTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Overall deadline for fetching all four resources together
+     */
+    private Duration fetchDeadline = Duration.ofSeconds(8);
+
+    /**
+     * How long a completed upstream fetch is shared with later callers; zero only coalesces
+     * callers that overlap the in-flight request
+     */
+    private Duration coalesceWindow = Duration.ZERO;
+
+    /**
+     * Age after which a read triggers a background refresh while still returning the current
+     * (stale) snapshot
+     */
+    private Duration maxAge = Duration.ofMinutes(2);
+
+    /**
+     * File the last published snapshot is persisted to and warm-started from; blank disables
+     * persistence
+     */
+    private String snapshotFile;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Hedging hedging = new Hedging();
+
+    /**
+     * Per-resource circuit breaker settings (prefix {@code ilp.reference-data.circuit-breaker})
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * Consecutive failures after which calls to the resource are short-circuited
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * How long the circuit stays open before a single trial call is allowed
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Hedged request settings (prefix {@code ilp.reference-data.hedging})
+     */
+    @Data
+    public static class Hedging {
+
+        /**
+         * Whether a second request is sent when the first exceeds the resource's p95 latency
+         */
+        private boolean enabled = false;
+
+        /**
+         * Latency samples needed before the p95 is trusted and requests are hedged
+         */
+        private int minSamples = 20;
+
+        /**
+         * Lower bound on the hedge delay, so a fast resource is not hedged on noise
+         */
+        private Duration minDelay = Duration.ofMillis(20);
+    }
+}
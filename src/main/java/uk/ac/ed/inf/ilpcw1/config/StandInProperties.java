@@ -0,0 +1,66 @@
+package uk.ac.ed.inf.ilpcw1.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the local ILP stand-in and its synthetic data (prefix {@code ilp.stand-in}).
+ * Only used when the {@code ilp-stand-in} profile is active.
+ */
+@Data
+@ConfigurationProperties(prefix = "ilp.stand-in")
+public class StandInProperties {
+
+    /**
+     * Seed for the generator; the same seed and sizes always produce the same data
+     */
+    private long seed = 42;
+
+    /**
+     * Number of drones in the fleet
+     */
+    private int drones = 10;
+
+    /**
+     * Number of service points the fleet is spread over
+     */
+    private int servicePoints = 2;
+
+    /**
+     * Number of restricted (no-fly) areas
+     */
+    private int restrictedAreas = 4;
+
+    /**
+     * Vertices per restricted area, excluding the closing vertex
+     */
+    private int verticesPerArea = 6;
+
+    /**
+     * Probability that a drone is available on a given day of the week
+     */
+    private double availabilityDensity = 0.6;
+
+    /**
+     * Centre of the generated area
+     */
+    private double centreLng = -3.1883;
+    private double centreLat = 55.9445;
+
+    /**
+     * Half-width of the generated area in degrees
+     */
+    private double radius = 0.02;
+
+    /**
+     * Fixed delay added to every response
+     */
+    private Duration latency = Duration.ZERO;
+
+    /**
+     * Maximum extra random delay added on top of the fixed latency
+     */
+    private Duration latencyJitter = Duration.ZERO;
+}
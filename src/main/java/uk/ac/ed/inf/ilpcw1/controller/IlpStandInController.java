@@ -0,0 +1,107 @@
+package uk.ac.ed.inf.ilpcw1.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import uk.ac.ed.inf.ilpcw1.config.StandInProperties;
+import uk.ac.ed.inf.ilpcw1.service.SyntheticIlpDataGenerator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the ILP REST service, serving seeded synthetic data for offline load
+ * and capacity testing. Active only under the {@code ilp-stand-in} profile, which also points
+ * {@code ilp.endpoint} here. Responses carry an ETag and honour If-None-Match, and every
+ * response can be delayed by a configurable latency.
+ */
+@RestController
+@Profile("ilp-stand-in")
+@RequestMapping("/ilp-stand-in")
+public class IlpStandInController {
+
+    private static final Logger logger = LoggerFactory.getLogger(IlpStandInController.class);
+
+    private record Payload(byte[] body, String etag) {
+    }
+
+    private final StandInProperties properties;
+    private final Payload drones;
+    private final Payload availability;
+    private final Payload servicePoints;
+    private final Payload restrictedAreas;
+
+    @Autowired
+    public IlpStandInController(StandInProperties properties, ObjectMapper objectMapper) throws JsonProcessingException {
+        this.properties = properties;
+        SyntheticIlpDataGenerator.Dataset dataset = new SyntheticIlpDataGenerator(properties).generate();
+        this.drones = payload(objectMapper, dataset.drones());
+        this.availability = payload(objectMapper, dataset.availability());
+        this.servicePoints = payload(objectMapper, dataset.servicePoints());
+        this.restrictedAreas = payload(objectMapper, dataset.restrictedAreas());
+        logger.info("ILP stand-in serving {} drones, {} service points and {} restricted areas (seed {})",
+                dataset.drones().size(), dataset.servicePoints().size(), dataset.restrictedAreas().size(),
+                properties.getSeed());
+    }
+
+    private static Payload payload(ObjectMapper objectMapper, Object value) throws JsonProcessingException {
+        byte[] body = objectMapper.writeValueAsBytes(value);
+        return new Payload(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    }
+
+    @GetMapping("/drones")
+    public ResponseEntity<byte[]> getDrones(WebRequest request) {
+        return serve(drones, request);
+    }
+
+    @GetMapping("/drones-for-service-points")
+    public ResponseEntity<byte[]> getDronesForServicePoints(WebRequest request) {
+        return serve(availability, request);
+    }
+
+    @GetMapping("/service-points")
+    public ResponseEntity<byte[]> getServicePoints(WebRequest request) {
+        return serve(servicePoints, request);
+    }
+
+    @GetMapping("/restricted-areas")
+    public ResponseEntity<byte[]> getRestrictedAreas(WebRequest request) {
+        return serve(restrictedAreas, request);
+    }
+
+    private ResponseEntity<byte[]> serve(Payload payload, WebRequest request) {
+        simulateLatency();
+        if (request.checkNotModified(payload.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(payload.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payload.body());
+    }
+
+    private void simulateLatency() {
+        long delayMs = properties.getLatency().toMillis();
+        long jitterMs = properties.getLatencyJitter().toMillis();
+        if (jitterMs > 0) {
+            delayMs += ThreadLocalRandom.current().nextLong(jitterMs + 1);
+        }
+        if (delayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package uk.ac.ed.inf.ilpcw1.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Column-oriented, immutable store of a drone fleet.
+ * Capabilities are held in primitive arrays indexed by row; a missing value is stored as
+ * {@link #NULL_BOOLEAN}, {@link #NULL_INT} or NaN. {@link #asList()} exposes the rows as
+ * {@link Drone} beans for existing callers, creating each bean only when it is first read.
+ */
+public final class DroneColumns {
+
+    public static final byte NULL_BOOLEAN = -1;
+    public static final int NULL_INT = Integer.MIN_VALUE;
+
+    private static final DroneColumns EMPTY = new Builder(0).build();
+
+    private final int size;
+    private final String[] ids;
+    private final String[] names;
+    private final boolean[] hasCapability;
+    private final byte[] cooling;
+    private final byte[] heating;
+    private final double[] capacity;
+    private final int[] maxMoves;
+    private final double[] costPerMove;
+    private final double[] costInitial;
+    private final double[] costFinal;
+    private final List<Drone> list;
+
+    private DroneColumns(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.hasCapability = Arrays.copyOf(builder.hasCapability, size);
+        this.cooling = Arrays.copyOf(builder.cooling, size);
+        this.heating = Arrays.copyOf(builder.heating, size);
+        this.capacity = Arrays.copyOf(builder.capacity, size);
+        this.maxMoves = Arrays.copyOf(builder.maxMoves, size);
+        this.costPerMove = Arrays.copyOf(builder.costPerMove, size);
+        this.costInitial = Arrays.copyOf(builder.costInitial, size);
+        this.costFinal = Arrays.copyOf(builder.costFinal, size);
+        this.list = new DroneList();
+    }
+
+    public static DroneColumns empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Columns backing a drone list: the list's own columns when it came from
+     * {@link #asList()}, otherwise a columnar copy of the beans
+     * @param drones drone list
+     * @return the columns
+     */
+    public static DroneColumns of(List<Drone> drones) {
+        if (drones instanceof DroneColumns.DroneList columnList) {
+            return columnList.columns();
+        }
+        Builder builder = new Builder(drones.size());
+        for (Drone drone : drones) {
+            if (drone == null) {
+                continue;
+            }
+            builder.begin();
+            builder.id(drone.getId());
+            builder.name(drone.getName());
+            DroneCapability c = drone.getCapability();
+            if (c != null) {
+                builder.capability();
+                builder.cooling(toByte(c.getCooling()));
+                builder.heating(toByte(c.getHeating()));
+                builder.capacity(c.getCapacity() == null ? Double.NaN : c.getCapacity());
+                builder.maxMoves(c.getMaxMoves() == null ? NULL_INT : c.getMaxMoves());
+                builder.costPerMove(c.getCostPerMove() == null ? Double.NaN : c.getCostPerMove());
+                builder.costInitial(c.getCostInitial() == null ? Double.NaN : c.getCostInitial());
+                builder.costFinal(c.getCostFinal() == null ? Double.NaN : c.getCostFinal());
+            }
+            builder.end();
+        }
+        return builder.build();
+    }
+
+    private static byte toByte(Boolean value) {
+        return value == null ? NULL_BOOLEAN : (byte) (value ? 1 : 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String id(int row) {
+        return ids[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public boolean hasCapability(int row) {
+        return hasCapability[row];
+    }
+
+    /**
+     * @return 1 if the drone has cooling, 0 if not, {@link #NULL_BOOLEAN} if unknown
+     */
+    public byte cooling(int row) {
+        return cooling[row];
+    }
+
+    /**
+     * @return 1 if the drone has heating, 0 if not, {@link #NULL_BOOLEAN} if unknown
+     */
+    public byte heating(int row) {
+        return heating[row];
+    }
+
+    public double capacity(int row) {
+        return capacity[row];
+    }
+
+    public int maxMoves(int row) {
+        return maxMoves[row];
+    }
+
+    public double costPerMove(int row) {
+        return costPerMove[row];
+    }
+
+    public double costInitial(int row) {
+        return costInitial[row];
+    }
+
+    public double costFinal(int row) {
+        return costFinal[row];
+    }
+
+    /**
+     * @return the rows as an unmodifiable list of {@link Drone} beans, created on first access
+     */
+    public List<Drone> asList() {
+        return list;
+    }
+
+    private Drone toDrone(int row) {
+        DroneCapability capability = null;
+        if (hasCapability[row]) {
+            capability = new DroneCapability(
+                    cooling[row] == NULL_BOOLEAN ? null : cooling[row] != 0,
+                    heating[row] == NULL_BOOLEAN ? null : heating[row] != 0,
+                    Double.isNaN(capacity[row]) ? null : capacity[row],
+                    maxMoves[row] == NULL_INT ? null : maxMoves[row],
+                    Double.isNaN(costPerMove[row]) ? null : costPerMove[row],
+                    Double.isNaN(costInitial[row]) ? null : costInitial[row],
+                    Double.isNaN(costFinal[row]) ? null : costFinal[row]);
+        }
+        return new Drone(ids[row], names[row], capability);
+    }
+
+    private final class DroneList extends AbstractList<Drone> implements RandomAccess {
+
+        private final AtomicReferenceArray<Drone> materialized = new AtomicReferenceArray<>(size);
+
+        DroneColumns columns() {
+            return DroneColumns.this;
+        }
+
+        @Override
+        public Drone get(int index) {
+            Drone drone = materialized.get(index);
+            if (drone == null) {
+                materialized.compareAndSet(index, null, toDrone(index));
+                drone = materialized.get(index);
+            }
+            return drone;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Appends drones row by row: {@link #begin()}, the field setters, then {@link #end()}
+     */
+    public static final class Builder {
+
+        private int size;
+        private String[] ids;
+        private String[] names;
+        private boolean[] hasCapability;
+        private byte[] cooling;
+        private byte[] heating;
+        private double[] capacity;
+        private int[] maxMoves;
+        private double[] costPerMove;
+        private double[] costInitial;
+        private double[] costFinal;
+
+        public Builder(int expectedSize) {
+            int initial = Math.max(expectedSize, 8);
+            ids = new String[initial];
+            names = new String[initial];
+            hasCapability = new boolean[initial];
+            cooling = new byte[initial];
+            heating = new byte[initial];
+            capacity = new double[initial];
+            maxMoves = new int[initial];
+            costPerMove = new double[initial];
+            costInitial = new double[initial];
+            costFinal = new double[initial];
+        }
+
+        /**
+         * Start a new row with every field missing
+         */
+        public void begin() {
+            if (size == ids.length) {
+                int grown = size * 2;
+                ids = Arrays.copyOf(ids, grown);
+                names = Arrays.copyOf(names, grown);
+                hasCapability = Arrays.copyOf(hasCapability, grown);
+                cooling = Arrays.copyOf(cooling, grown);
+                heating = Arrays.copyOf(heating, grown);
+                capacity = Arrays.copyOf(capacity, grown);
+                maxMoves = Arrays.copyOf(maxMoves, grown);
+                costPerMove = Arrays.copyOf(costPerMove, grown);
+                costInitial = Arrays.copyOf(costInitial, grown);
+                costFinal = Arrays.copyOf(costFinal, grown);
+            }
+            ids[size] = null;
+            names[size] = null;
+            hasCapability[size] = false;
+            cooling[size] = NULL_BOOLEAN;
+            heating[size] = NULL_BOOLEAN;
+            capacity[size] = Double.NaN;
+            maxMoves[size] = NULL_INT;
+            costPerMove[size] = Double.NaN;
+            costInitial[size] = Double.NaN;
+            costFinal[size] = Double.NaN;
+        }
+
+        public void id(String value) {
+            ids[size] = value;
+        }
+
+        public void name(String value) {
+            names[size] = value;
+        }
+
+        /**
+         * Mark the current row as having a capability object
+         */
+        public void capability() {
+            hasCapability[size] = true;
+        }
+
+        public void cooling(byte value) {
+            cooling[size] = value;
+        }
+
+        public void heating(byte value) {
+            heating[size] = value;
+        }
+
+        public void capacity(double value) {
+            capacity[size] = value;
+        }
+
+        public void maxMoves(int value) {
+            maxMoves[size] = value;
+        }
+
+        public void costPerMove(double value) {
+            costPerMove[size] = value;
+        }
+
+        public void costInitial(double value) {
+            costInitial[size] = value;
+        }
+
+        public void costFinal(double value) {
+            costFinal[size] = value;
+        }
+
+        public void end() {
+            size++;
+        }
+
+        public DroneColumns build() {
+            return new DroneColumns(this);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package uk.ac.ed.inf.ilpcw1.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Column-oriented, immutable store of restricted areas.
+ * All vertices are packed into one {@code double[]} as interleaved lng/lat pairs; polygon
+ * {@code p} owns vertices {@code vertexStart(p)} (inclusive) to {@code vertexEnd(p)} (exclusive).
+ * A missing coordinate is NaN and a missing integer is {@link #NULL_INT}. {@link #asList()}
+ * exposes the polygons as {@link RestrictedArea} beans, creating each only when first read.
+ */
+public final class PolygonColumns {
+
+    public static final int NULL_INT = Integer.MIN_VALUE;
+
+    private static final PolygonColumns EMPTY = new Builder(0, 0).build();
+
+    private final int size;
+    private final String[] names;
+    private final int[] ids;
+    private final boolean[] hasLimits;
+    private final int[] lower;
+    private final int[] upper;
+    private final boolean[] hasVertices;
+    private final int[] vertexStart;
+    private final double[] coordinates;
+    private final List<RestrictedArea> list;
+
+    private PolygonColumns(Builder builder) {
+        this.size = builder.size;
+        this.names = Arrays.copyOf(builder.names, size);
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.hasLimits = Arrays.copyOf(builder.hasLimits, size);
+        this.lower = Arrays.copyOf(builder.lower, size);
+        this.upper = Arrays.copyOf(builder.upper, size);
+        this.hasVertices = Arrays.copyOf(builder.hasVertices, size);
+        this.vertexStart = Arrays.copyOf(builder.vertexStart, size + 1);
+        this.vertexStart[size] = builder.vertexCount;
+        this.coordinates = Arrays.copyOf(builder.coordinates, builder.vertexCount * 2);
+        this.list = new AreaList();
+    }
+
+    public static PolygonColumns empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Columns backing a restricted area list: the list's own columns when it came from
+     * {@link #asList()}, otherwise a columnar copy of the beans
+     * @param areas restricted areas
+     * @return the columns
+     */
+    public static PolygonColumns of(List<RestrictedArea> areas) {
+        PolygonColumns backing = backing(areas);
+        if (backing != null) {
+            return backing;
+        }
+        Builder builder = new Builder(areas.size(), areas.size() * 8);
+        for (RestrictedArea area : areas) {
+            if (area == null) {
+                continue;
+            }
+            builder.begin();
+            builder.name(area.getName());
+            builder.id(area.getId() == null ? NULL_INT : area.getId());
+            Limits limits = area.getLimits();
+            if (limits != null) {
+                builder.limits(limits.getLower() == null ? NULL_INT : limits.getLower(),
+                        limits.getUpper() == null ? NULL_INT : limits.getUpper());
+            }
+            if (area.getVertices() != null) {
+                builder.vertices();
+                for (LngLat vertex : area.getVertices()) {
+                    builder.vertex(
+                            vertex == null || vertex.getLongitude() == null ? Double.NaN : vertex.getLongitude(),
+                            vertex == null || vertex.getLatitude() == null ? Double.NaN : vertex.getLatitude());
+                }
+            }
+            builder.end();
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the columns behind a list that came from {@link #asList()}, or null for any other list
+     */
+    public static PolygonColumns backing(List<RestrictedArea> areas) {
+        return areas instanceof PolygonColumns.AreaList columnList ? columnList.columns() : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int polygon) {
+        return names[polygon];
+    }
+
+    public int id(int polygon) {
+        return ids[polygon];
+    }
+
+    public boolean hasLimits(int polygon) {
+        return hasLimits[polygon];
+    }
+
+    public int lower(int polygon) {
+        return lower[polygon];
+    }
+
+    public int upper(int polygon) {
+        return upper[polygon];
+    }
+
+    /**
+     * @return false if the polygon had no vertex list at all
+     */
+    public boolean hasVertices(int polygon) {
+        return hasVertices[polygon];
+    }
+
+    public int vertexStart(int polygon) {
+        return vertexStart[polygon];
+    }
+
+    public int vertexEnd(int polygon) {
+        return vertexStart[polygon + 1];
+    }
+
+    /**
+     * @return total number of vertices over all polygons
+     */
+    public int vertexCount() {
+        return vertexStart[size];
+    }
+
+    public double lng(int vertex) {
+        return coordinates[vertex * 2];
+    }
+
+    public double lat(int vertex) {
+        return coordinates[vertex * 2 + 1];
+    }
+
+    /**
+     * @return the rows as an unmodifiable list of {@link RestrictedArea} beans, created on first access
+     */
+    public List<RestrictedArea> asList() {
+        return list;
+    }
+
+    private RestrictedArea toRestrictedArea(int polygon) {
+        Limits limits = hasLimits[polygon]
+                ? new Limits(lower[polygon] == NULL_INT ? null : lower[polygon],
+                upper[polygon] == NULL_INT ? null : upper[polygon])
+                : null;
+        List<LngLat> vertices = null;
+        if (hasVertices[polygon]) {
+            vertices = new ArrayList<>(vertexEnd(polygon) - vertexStart(polygon));
+            for (int v = vertexStart(polygon); v < vertexEnd(polygon); v++) {
+                double lng = lng(v);
+                double lat = lat(v);
+                vertices.add(Double.isNaN(lng) && Double.isNaN(lat) ? null
+                        : new LngLat(Double.isNaN(lng) ? null : lng, Double.isNaN(lat) ? null : lat));
+            }
+        }
+        return new RestrictedArea(names[polygon], ids[polygon] == NULL_INT ? null : ids[polygon], limits, vertices);
+    }
+
+    private final class AreaList extends AbstractList<RestrictedArea> implements RandomAccess {
+
+        private final AtomicReferenceArray<RestrictedArea> materialized = new AtomicReferenceArray<>(size);
+
+        PolygonColumns columns() {
+            return PolygonColumns.this;
+        }
+
+        @Override
+        public RestrictedArea get(int index) {
+            RestrictedArea area = materialized.get(index);
+            if (area == null) {
+                materialized.compareAndSet(index, null, toRestrictedArea(index));
+                area = materialized.get(index);
+            }
+            return area;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Appends polygons one at a time: {@link #begin()}, the field setters and vertices, then {@link #end()}
+     */
+    public static final class Builder {
+
+        private int size;
+        private int vertexCount;
+        private String[] names;
+        private int[] ids;
+        private boolean[] hasLimits;
+        private int[] lower;
+        private int[] upper;
+        private boolean[] hasVertices;
+        private int[] vertexStart;
+        private double[] coordinates;
+
+        public Builder(int expectedPolygons, int expectedVertices) {
+            int polygons = Math.max(expectedPolygons, 8);
+            names = new String[polygons];
+            ids = new int[polygons];
+            hasLimits = new boolean[polygons];
+            lower = new int[polygons];
+            upper = new int[polygons];
+            hasVertices = new boolean[polygons];
+            vertexStart = new int[polygons + 1];
+            coordinates = new double[Math.max(expectedVertices, 32) * 2];
+        }
+
+        /**
+         * Start a new polygon with every field missing
+         */
+        public void begin() {
+            if (size == names.length) {
+                int grown = size * 2;
+                names = Arrays.copyOf(names, grown);
+                ids = Arrays.copyOf(ids, grown);
+                hasLimits = Arrays.copyOf(hasLimits, grown);
+                lower = Arrays.copyOf(lower, grown);
+                upper = Arrays.copyOf(upper, grown);
+                hasVertices = Arrays.copyOf(hasVertices, grown);
+                vertexStart = Arrays.copyOf(vertexStart, grown + 1);
+            }
+            names[size] = null;
+            ids[size] = NULL_INT;
+            hasLimits[size] = false;
+            lower[size] = NULL_INT;
+            upper[size] = NULL_INT;
+            hasVertices[size] = false;
+            vertexStart[size] = vertexCount;
+        }
+
+        public void name(String value) {
+            names[size] = value;
+        }
+
+        public void id(int value) {
+            ids[size] = value;
+        }
+
+        public void limits(int lowerValue, int upperValue) {
+            hasLimits[size] = true;
+            lower[size] = lowerValue;
+            upper[size] = upperValue;
+        }
+
+        /**
+         * Mark the current polygon as having a vertex list, possibly empty
+         */
+        public void vertices() {
+            hasVertices[size] = true;
+        }
+
+        public void vertex(double lng, double lat) {
+            if (vertexCount * 2 == coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            coordinates[vertexCount * 2] = lng;
+            coordinates[vertexCount * 2 + 1] = lat;
+            vertexCount++;
+        }
+
+        public void end() {
+            size++;
+        }
+
+        public PolygonColumns build() {
+            return new PolygonColumns(this);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package uk.ac.ed.inf.ilpcw1.data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable, versioned view of the ILP reference data.
+ * A new snapshot is built by each refresh and published with an atomic swap,
+ * so request threads always see one consistent set of drones, availability,
+ * service points and restricted areas.
+ *
+ * @param version         monotonically increasing snapshot version
+ * @param fetchedAt       time the snapshot was built
+ * @param drones          all drones
+ * @param availability    drones available at each service point
+ * @param servicePoints   all service points
+ * @param restrictedAreas all restricted (no-fly) areas
+ */
+public record ReferenceDataSnapshot(
+        long version,
+        Instant fetchedAt,
+        List<Drone> drones,
+        List<DroneServicePointRequest> availability,
+        List<ServicePoints> servicePoints,
+        List<RestrictedArea> restrictedAreas) {
+}
@@ -112,4 +112,19 @@ public class GlobalExceptionHandler {
         error.put("message", ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
+
+    /**
+     * Handles UpstreamUnavailableException, raised when the ILP service cannot be reached
+     * and there is no previously fetched data to fall back on, and returns 503 service unavailable
+     * @param ex - the exception
+     * @return - ResponseEntity with error details being upstream unavailable
+     */
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleUpstreamUnavailableException(UpstreamUnavailableException ex) {
+        logger.error("ILP service unavailable: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service Unavailable");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
 }
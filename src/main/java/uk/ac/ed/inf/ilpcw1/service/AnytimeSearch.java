@@ -0,0 +1,230 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Anytime repairing A* (ARA*) over the move lattice for one leg.
+ * Each round is a weighted A* with the heuristic inflated by the current weight; it ends as
+ * soon as it expands a node within the close distance of the goal. The weight is then lowered
+ * and the next round continues from the previous open set, re-expanding only the nodes whose
+ * cost improved after they were expanded (kept aside as inconsistent), until a round with the
+ * final weight completes or the budget runs out. The final round has no later one to leave
+ * such nodes to, so it reopens them.
+ * <p>
+ * A first round with the final weight is the plain A* search used before anytime mode.
+ * <p>
+ * With symmetry pruning, a node with no zone within a move of it, and not yet near the goal,
+ * only tries its own heading and the two directions next to it (see
+ * {@link MoveLattice#isNaturalSuccessor}): the open space between obstacles then holds one
+ * ordering of each mix of directions instead of all of them.
+ */
+final class AnytimeSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnytimeSearch.class);
+
+    /**
+     * Weight of the last round: 1 would give strictly shortest paths; 1.0001 breaks ties towards
+     * the goal without noticeably affecting cost
+     */
+    static final double FINAL_WEIGHT = 1.0001;
+
+    private static final double CLOSE_DISTANCE = 0.00015;
+    // once the excess weight is this small the next round uses the final weight
+    private static final double SMALLEST_WEIGHT_STEP = 0.05;
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+    // within this distance of the goal every direction is tried, to turn into the goal region
+    private static final double GOAL_APPROACH = 3 * CLOSE_DISTANCE;
+
+    private final SearchNodes nodes;
+    private final LongIntHashMap visited;
+    private final IndexedMinHeap open;
+    private final IndexedMinHeap inconsistent;
+    private final double startLng;
+    private final double startLat;
+    private final LegHeuristic heuristic;
+    private final PreparedObstacles noFlyZones;
+    private final RouteCorridor corridor;
+    private final boolean symmetryPruning;
+    private final int maxExpansions;
+    private final long deadlineNanos;
+
+    private double weight;
+    private int iteration = 1;
+    private int expansions;
+    private boolean stopped;
+    private boolean timedOut;
+    private int bestGoal = SearchNodes.NO_PARENT;
+    private double bestCost = Double.POSITIVE_INFINITY;
+    // smallest g + remaining moves of a node whose successor the corridor kept out
+    private double corridorLower = Double.POSITIVE_INFINITY;
+
+    /**
+     * @param workspace     reset storage for the search
+     * @param corridor        if not null, nodes outside it are never opened
+     * @param symmetryPruning whether nodes in open space only try the directions next to the one they were reached by
+     * @param deadlineNanos {@link System#nanoTime()} after which the search stops, or {@link Long#MAX_VALUE}
+     */
+    AnytimeSearch(SearchWorkspace workspace, double startLng, double startLat, LegHeuristic heuristic,
+                  PreparedObstacles noFlyZones, RouteCorridor corridor, boolean symmetryPruning,
+                  double initialWeight, int maxExpansions, long deadlineNanos) {
+        this.nodes = workspace.nodes();
+        this.visited = workspace.visited();
+        this.open = workspace.open();
+        this.inconsistent = workspace.inconsistent();
+        this.startLng = startLng;
+        this.startLat = startLat;
+        this.heuristic = heuristic;
+        this.noFlyZones = noFlyZones;
+        this.corridor = corridor;
+        this.symmetryPruning = symmetryPruning;
+        this.weight = Math.max(initialWeight, FINAL_WEIGHT);
+        this.maxExpansions = maxExpansions;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    SearchOutcome run() {
+        int startId = nodes.add(0, 0, heuristic.moves(0, 0));
+        visited.put(MoveLattice.cellKey(0, 0), startId);
+        open.insert(startId, key(startId));
+
+        while (true) {
+            improvePath();
+            if (stopped || bestGoal == SearchNodes.NO_PARENT || weight <= FINAL_WEIGHT) {
+                break;
+            }
+            weight = weight - 1 > 2 * SMALLEST_WEIGHT_STEP ? 1 + (weight - 1) / 2 : FINAL_WEIGHT;
+            iteration++;
+            for (int i = 0; i < inconsistent.size(); i++) {
+                open.insert(inconsistent.idAt(i), 0);
+            }
+            inconsistent.clear();
+            open.rekey(this::key);
+        }
+
+        if (bestGoal == SearchNodes.NO_PARENT) {
+            if (stopped) {
+                logger.warn("No path found after {} expansions ({})", expansions, timedOut ? "time limit reached" : "Max Reached");
+            } else {
+                logger.warn("No path found - open set exhausted after {} expansions", expansions);
+            }
+            return new SearchOutcome(null, Double.POSITIVE_INFINITY, expansions, !stopped, timedOut);
+        }
+        double bound = suboptimalityBound();
+        logger.info("Path found in {} expansions with {} moves, at most {} times the shortest{}",
+                expansions, bestCost, bound, stopped ? " (budget exhausted)" : "");
+        return new SearchOutcome(nodes.offsetsTo(bestGoal), bound, expansions, !stopped, timedOut);
+    }
+
+    /**
+     * One weighted A* round; ends at the first goal node expanded, when no queued node can lead
+     * to a better path under the current weight, or when the budget runs out
+     */
+    private void improvePath() {
+        while (!open.isEmpty() && open.minKey() < bestCost) {
+            if (expansions >= maxExpansions) {
+                stopped = true;
+                return;
+            }
+            if (expansions % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos > 0) {
+                stopped = true;
+                timedOut = true;
+                return;
+            }
+            int current = open.pollMin();
+            expansions++;
+            nodes.close(current, iteration);
+            long x = nodes.x(current);
+            long y = nodes.y(current);
+
+            if (heuristic.distanceToGoal(x, y) < CLOSE_DISTANCE) {
+                if (nodes.g(current) < bestCost) {
+                    bestGoal = current;
+                    bestCost = nodes.g(current);
+                    logger.debug("Round with weight {} found a path of {} moves after {} expansions", weight, bestCost, expansions);
+                }
+                return;
+            }
+            expand(current, x, y);
+        }
+    }
+
+    private void expand(int current, long x, long y) {
+        double currentLng = startLng + MoveLattice.toDegrees(x);
+        double currentLat = startLat + MoveLattice.toDegrees(y);
+        double tentativeG = nodes.g(current) + 1;
+        int heading = nodes.heading(current);
+        boolean pruned = symmetryPruning && noFlyZones.isInOpenSpace(currentLng, currentLat)
+                && heuristic.distanceToGoal(x, y) >= GOAL_APPROACH;
+        for (int direction = 0; direction < MoveLattice.DIRECTIONS; direction++) {
+            if (pruned && !MoveLattice.isNaturalSuccessor(heading, direction)) {
+                continue;
+            }
+            long nextX = x + MoveLattice.dx(direction);
+            long nextY = y + MoveLattice.dy(direction);
+            double nextLng = startLng + MoveLattice.toDegrees(nextX);
+            double nextLat = startLat + MoveLattice.toDegrees(nextY);
+
+            if (noFlyZones.blocks(currentLng, currentLat, nextLng, nextLat)) {
+                continue;
+            }
+
+            long nextKey = MoveLattice.cellKey(nextX, nextY);
+            int next = visited.get(nextKey, SearchNodes.NO_PARENT);
+
+            if (next == SearchNodes.NO_PARENT) {
+                if (corridor != null && !corridor.contains(nextLng, nextLat)) {
+                    // the heuristic drops by at most one per move, so paths through the cell
+                    // left out cost no less than this node's estimate
+                    corridorLower = Math.min(corridorLower, nodes.g(current) + remainingAtLeast(nodes.h(current)));
+                    continue;
+                }
+                double h = heuristic.moves(nextX, nextY);
+                if (tentativeG + remainingAtLeast(h) >= bestCost) {
+                    // cannot lead to a shorter path than the one already found
+                    continue;
+                }
+                next = nodes.add(nextX, nextY, current, direction, tentativeG, h);
+                visited.put(nextKey, next);
+                open.insert(next, key(next));
+            } else if (tentativeG < nodes.g(next)) {
+                // the cell keeps its first-discovered lattice point
+                nodes.relax(next, current, direction, tentativeG);
+                if (nodes.isClosedIn(next, iteration) && weight > FINAL_WEIGHT) {
+                    // expanded already this round: wait for the next round
+                    inconsistent.insertOrDecrease(next, 0);
+                } else {
+                    open.insertOrDecrease(next, key(next));
+                }
+            }
+        }
+    }
+
+    private double key(int id) {
+        return nodes.g(id) + weight * nodes.h(id);
+    }
+
+    /**
+     * Moves the heuristic guarantees are still needed: the goal only has to be approached to
+     * within the close distance, one move length, so one move less than the estimate
+     */
+    private static double remainingAtLeast(double h) {
+        return Math.max(0, h - 1);
+    }
+
+    /**
+     * Ratio of the best path's cost to a lower bound on the shortest: every shorter path must
+     * pass through a queued or inconsistent node, or leave the corridor, so none is shorter
+     * than the smallest g + remaining moves among them and the nodes the corridor cut off
+     */
+    private double suboptimalityBound() {
+        double lower = Math.min(bestCost, corridorLower);
+        for (IndexedMinHeap queued : new IndexedMinHeap[]{open, inconsistent}) {
+            for (int i = 0; i < queued.size(); i++) {
+                int id = queued.idAt(i);
+                lower = Math.min(lower, nodes.g(id) + remainingAtLeast(nodes.h(id)));
+            }
+        }
+        return lower <= 0 ? 1 : Math.max(1, bestCost / lower);
+    }
+}
@@ -0,0 +1,323 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Bidirectional A* over the move lattice for one long leg: a forward search from the start and
+ * a backward search from the region around the goal, always expanding the side with the smaller
+ * open set. Both are guided by the same potential, half the difference between the distances
+ * to the goal and back to the start (negated for the backward side), so the sum of the two
+ * smallest keys, rounded up to whole moves, bounds every path not found yet. The 16 moves are
+ * symmetric, so the backward search uses the same move table, checking each move in the
+ * direction the drone will fly it.
+ * <p>
+ * Both sides deduplicate states on the same 1e-5 degree cells, anchored at the start, so a
+ * state generated by one side is looked up in the other side's visited map. The two lattices
+ * do not line up, so the sides meet when their nodes are in the same or neighbouring cells;
+ * the path then follows the forward nodes to the meeting point and replays the backward
+ * nodes' moves from there, so every move keeps its exact length. The replayed moves run
+ * parallel to the backward ones, a few cells away, so they are checked against the zones
+ * again, and the backward roots lie far enough inside the goal region for the shifted end to
+ * stay in it. The search stops once that bound reaches the cost of the best path found.
+ * <p>
+ * Paths ending between the ring of roots and the edge of the goal region are only found by
+ * the forward search on its own, so the path may be a move longer than the one-sided search's;
+ * the bound it reports allows for that move, and the search is off by default.
+ */
+final class BidirectionalSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(BidirectionalSearch.class);
+
+    private static final double CLOSE_DISTANCE = 0.00015;
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+    // within this distance of its target a side tries every direction
+    private static final double GOAL_APPROACH = 3 * CLOSE_DISTANCE;
+    // slack for rounding errors in the potentials before the bound is rounded up
+    private static final double BOUND_TOLERANCE = 1e-9;
+    // the sides meet when their nodes are in the same or neighbouring cells
+    private static final int MEET_CELLS = 1;
+    // radius of the ring of backward roots, as a fraction of a move (the close distance): a path
+    // meeting in a neighbouring cell ends at most two cell diagonals (2.9e-5) from a root, so still near the goal
+    private static final double GOAL_RING = 0.8;
+
+    /**
+     * One direction of the search
+     */
+    private final class Side {
+
+        final SearchNodes nodes;
+        final LongIntHashMap visited;
+        final IndexedMinHeap open;
+        final LegHeuristic heuristic;
+        final double rootLng;
+        final double rootLat;
+        // lattice units from the start to this side's root, aligning its cells with the forward ones
+        final long shiftX;
+        final long shiftY;
+        final boolean forward;
+        Side other;
+
+        Side(SearchWorkspace workspace, LegHeuristic heuristic, double rootLng, double rootLat,
+             long shiftX, long shiftY, boolean forward) {
+            this.nodes = workspace.nodes();
+            this.visited = workspace.visited();
+            this.open = workspace.open();
+            this.heuristic = heuristic;
+            this.rootLng = rootLng;
+            this.rootLat = rootLat;
+            this.shiftX = shiftX;
+            this.shiftY = shiftY;
+            this.forward = forward;
+        }
+
+        double lng(int id) {
+            return rootLng + MoveLattice.toDegrees(nodes.x(id));
+        }
+
+        double lat(int id) {
+            return rootLat + MoveLattice.toDegrees(nodes.y(id));
+        }
+
+        long cellKey(long x, long y) {
+            return MoveLattice.cellKey(x + shiftX, y + shiftY);
+        }
+
+        double key(int id) {
+            return nodes.g(id) + nodes.h(id);
+        }
+
+        /**
+         * Half the difference between the moves still needed to this side's target and back to
+         * its own end: the two sides' potentials of a point cancel out
+         */
+        double potential(long x, long y) {
+            return (heuristic.moves(x, y)
+                    - other.heuristic.moves(x + shiftX - other.shiftX, y + shiftY - other.shiftY)) / 2;
+        }
+
+        void addRoot(long x, long y) {
+            long cell = cellKey(x, y);
+            if (visited.get(cell, SearchNodes.NO_PARENT) != SearchNodes.NO_PARENT) {
+                return;
+            }
+            int root = nodes.add(x, y, potential(x, y));
+            visited.put(cell, root);
+            open.insert(root, key(root));
+        }
+
+        void expand(int current) {
+            long x = nodes.x(current);
+            long y = nodes.y(current);
+            double currentLng = lng(current);
+            double currentLat = lat(current);
+            double tentativeG = nodes.g(current) + 1;
+            int heading = nodes.heading(current);
+            boolean pruned = symmetryPruning && noFlyZones.isInOpenSpace(currentLng, currentLat)
+                    && heuristic.distanceToGoal(x, y) >= GOAL_APPROACH;
+            for (int direction = 0; direction < MoveLattice.DIRECTIONS; direction++) {
+                if (pruned && !MoveLattice.isNaturalSuccessor(heading, direction)) {
+                    continue;
+                }
+                long nextX = x + MoveLattice.dx(direction);
+                long nextY = y + MoveLattice.dy(direction);
+                double nextLng = rootLng + MoveLattice.toDegrees(nextX);
+                double nextLat = rootLat + MoveLattice.toDegrees(nextY);
+
+                boolean blocked = forward
+                        ? noFlyZones.blocks(currentLng, currentLat, nextLng, nextLat)
+                        : noFlyZones.blocks(nextLng, nextLat, currentLng, currentLat);
+                if (blocked) {
+                    continue;
+                }
+
+                long nextKey = cellKey(nextX, nextY);
+                int next = visited.get(nextKey, SearchNodes.NO_PARENT);
+                if (next == SearchNodes.NO_PARENT) {
+                    if (corridor != null && !corridor.contains(nextLng, nextLat)) {
+                        // the estimate drops by at most one per move, so paths through the cell
+                        // left out cost no less than this, less the move the bound allows for
+                        corridorLower = Math.min(corridorLower, nodes.g(current) + heuristic.moves(x, y));
+                        continue;
+                    }
+                    next = nodes.add(nextX, nextY, current, direction, tentativeG, potential(nextX, nextY));
+                    visited.put(nextKey, next);
+                } else if (tentativeG < nodes.g(next)) {
+                    // the cell keeps its first-discovered lattice point
+                    nodes.relax(next, current, direction, tentativeG);
+                } else {
+                    continue;
+                }
+                open.insertOrDecrease(next, key(next));
+
+                if (forward && heuristic.distanceToGoal(nodes.x(next), nodes.y(next)) < CLOSE_DISTANCE) {
+                    offer(next, SearchNodes.NO_PARENT, tentativeG);
+                }
+                for (long cellX = -MEET_CELLS; cellX <= MEET_CELLS; cellX++) {
+                    for (long cellY = -MEET_CELLS; cellY <= MEET_CELLS; cellY++) {
+                        int met = other.visited.get(cellKey(nextX + cellX * MoveLattice.CELL, nextY + cellY * MoveLattice.CELL),
+                                SearchNodes.NO_PARENT);
+                        if (met != SearchNodes.NO_PARENT) {
+                            if (forward) {
+                                meet(next, met);
+                            } else {
+                                meet(met, next);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private final Side forward;
+    private final Side backward;
+    private final PreparedObstacles noFlyZones;
+    private final RouteCorridor corridor;
+    private final boolean symmetryPruning;
+    private final int maxExpansions;
+    private final long deadlineNanos;
+
+    private int expansions;
+    private double bestCost = Double.POSITIVE_INFINITY;
+    // best path: forward nodes up to bestForward, then the moves from backward node bestBackward (if any) to its root
+    private int bestForward = SearchNodes.NO_PARENT;
+    private int bestBackward = SearchNodes.NO_PARENT;
+    // smallest g + moves to its target of a node, on either side, whose successor the corridor kept out
+    private double corridorLower = Double.POSITIVE_INFINITY;
+
+    /**
+     * @param forwardWorkspace  reset storage for the forward search
+     * @param backwardWorkspace reset storage for the backward search
+     * @param corridor          if not null, nodes outside it are never opened
+     * @param symmetryPruning   see {@link AnytimeSearch}
+     * @param deadlineNanos     {@link System#nanoTime()} after which the search stops, or {@link Long#MAX_VALUE}
+     */
+    BidirectionalSearch(SearchWorkspace forwardWorkspace, SearchWorkspace backwardWorkspace,
+                        double startLng, double startLat, double goalLng, double goalLat,
+                        LegHeuristic forwardHeuristic, LegHeuristic backwardHeuristic,
+                        PreparedObstacles noFlyZones, RouteCorridor corridor, boolean symmetryPruning,
+                        int maxExpansions, long deadlineNanos) {
+        this.noFlyZones = noFlyZones;
+        this.corridor = corridor;
+        this.symmetryPruning = symmetryPruning;
+        this.maxExpansions = maxExpansions;
+        this.deadlineNanos = deadlineNanos;
+        long shiftX = Math.round((goalLng - startLng) / MoveLattice.UNIT);
+        long shiftY = Math.round((goalLat - startLat) / MoveLattice.UNIT);
+        this.forward = new Side(forwardWorkspace, forwardHeuristic, startLng, startLat, 0, 0, true);
+        this.backward = new Side(backwardWorkspace, backwardHeuristic, goalLng, goalLat, shiftX, shiftY, false);
+        forward.other = backward;
+        backward.other = forward;
+    }
+
+    SearchOutcome run() {
+        forward.addRoot(0, 0);
+        // the backward search starts from the whole close-distance region around the goal: the
+        // goal point and a ring of points inside the close distance, in the 16 move directions
+        backward.addRoot(0, 0);
+        for (int direction = 0; direction < MoveLattice.DIRECTIONS; direction++) {
+            long x = Math.round(MoveLattice.dx(direction) * GOAL_RING);
+            long y = Math.round(MoveLattice.dy(direction) * GOAL_RING);
+            if (!noFlyZones.isInAnyZone(backward.rootLng + MoveLattice.toDegrees(x), backward.rootLat + MoveLattice.toDegrees(y))) {
+                backward.addRoot(x, y);
+            }
+        }
+        boolean stopped = false;
+        boolean timedOut = false;
+
+        // no path left unfound is shorter than this
+        double lower = Double.POSITIVE_INFINITY;
+        while (!forward.open.isEmpty()) {
+            // the potentials of a point cancel out, so a path through open nodes of both sides
+            // costs at least the sum of their keys, rounded up to whole moves
+            lower = Math.ceil(forward.open.minKey() + (backward.open.isEmpty() ? Double.POSITIVE_INFINITY : backward.open.minKey())
+                    - BOUND_TOLERANCE);
+            // an exhausted backward side proves nothing about paths ending near, rather than at,
+            // the goal, so the forward search goes on alone until it finds one
+            if (bestCost <= lower || (backward.open.isEmpty() && bestCost < Double.POSITIVE_INFINITY)) {
+                break;
+            }
+            if (expansions >= maxExpansions) {
+                stopped = true;
+                break;
+            }
+            if (expansions % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos > 0) {
+                stopped = true;
+                timedOut = true;
+                break;
+            }
+            Side side = backward.open.isEmpty() || forward.open.size() <= backward.open.size() ? forward : backward;
+            expansions++;
+            side.expand(side.open.pollMin());
+        }
+
+        if (bestForward == SearchNodes.NO_PARENT) {
+            logger.warn("No path found after {} expansions from both ends{}", expansions, stopped ? " (budget exhausted)" : "");
+            return new SearchOutcome(null, Double.POSITIVE_INFINITY, expansions, !stopped, timedOut);
+        }
+        // paths ending beyond the ring of backward roots may be a move shorter
+        double regionLower = Math.min(Math.min(lower, bestCost), corridorLower) - 1;
+        double bound = regionLower <= 0 ? 1 : Math.max(1, bestCost / regionLower);
+        logger.info("Path found in {} expansions from both ends with {} moves", expansions, bestCost);
+        return new SearchOutcome(pathOffsets(), bound, expansions, !stopped, timedOut);
+    }
+
+    /**
+     * The sides share a cell: follow the forward nodes to forwardNode, then replay the moves
+     * from backwardNode to its root, if none of them is blocked and the path still ends near the goal
+     */
+    private void meet(int forwardNode, int backwardNode) {
+        double cost = forward.nodes.g(forwardNode) + backward.nodes.g(backwardNode);
+        if (cost >= bestCost) {
+            return;
+        }
+        long x = forward.nodes.x(forwardNode);
+        long y = forward.nodes.y(forwardNode);
+        for (int id = backwardNode; backward.nodes.parent(id) != SearchNodes.NO_PARENT; id = backward.nodes.parent(id)) {
+            int parent = backward.nodes.parent(id);
+            long nextX = x + backward.nodes.x(parent) - backward.nodes.x(id);
+            long nextY = y + backward.nodes.y(parent) - backward.nodes.y(id);
+            if (noFlyZones.blocks(forward.rootLng + MoveLattice.toDegrees(x), forward.rootLat + MoveLattice.toDegrees(y),
+                    forward.rootLng + MoveLattice.toDegrees(nextX), forward.rootLat + MoveLattice.toDegrees(nextY))) {
+                return;
+            }
+            x = nextX;
+            y = nextY;
+        }
+        if (forward.heuristic.distanceToGoal(x, y) < CLOSE_DISTANCE) {
+            offer(forwardNode, backwardNode, cost);
+        }
+    }
+
+    /**
+     * Record a path through forward nodes up to forwardNode, then the moves from backwardNode
+     * (none if {@link SearchNodes#NO_PARENT}) to its root, if it is the best so far
+     */
+    private void offer(int forwardNode, int backwardNode, double cost) {
+        if (cost < bestCost) {
+            bestCost = cost;
+            bestForward = forwardNode;
+            bestBackward = backwardNode;
+        }
+    }
+
+    private long[] pathOffsets() {
+        long[] head = forward.nodes.offsetsTo(bestForward);
+        int tail = 0;
+        for (int id = bestBackward; id != SearchNodes.NO_PARENT && backward.nodes.parent(id) != SearchNodes.NO_PARENT;
+             id = backward.nodes.parent(id)) {
+            tail++;
+        }
+        long[] offsets = Arrays.copyOf(head, head.length + 2 * tail);
+        int i = head.length;
+        for (int id = bestBackward; i < offsets.length; id = backward.nodes.parent(id), i += 2) {
+            int parent = backward.nodes.parent(id);
+            offsets[i] = offsets[i - 2] + backward.nodes.x(parent) - backward.nodes.x(id);
+            offsets[i + 1] = offsets[i - 1] + backward.nodes.y(parent) - backward.nodes.y(id);
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consecutive-failure circuit breaker for one upstream endpoint.
+ * After {@code failureThreshold} failures in a row the circuit opens and calls are rejected
+ * without touching the network; once {@code openDuration} has passed a single trial call is
+ * let through (half-open), which either closes the circuit again or re-opens it.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicLong rejected = new AtomicLong();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+
+    /**
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param openDuration     how long the circuit stays open before a trial call
+     */
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Ask to make a call
+     * @return true if the call may go to the upstream, false if the circuit rejects it
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAtNanos >= openNanos) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+                break;
+            case HALF_OPEN:
+                // the trial call is still in flight
+                break;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * @return number of calls rejected while the circuit was open
+     */
+    long rejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,108 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Shortest path of a leg worked out without searching, for legs with nothing in the way.
+ * <p>
+ * No sequence of n moves gets further along the leg than n cos(delta), delta being the angle
+ * between the leg and the nearest of the 16 directions, so a path ending within the close
+ * distance of the goal needs at least the fewest n with n cos(delta) more than the leg's length
+ * less one move. The path tried mixes only the two directions either side of the leg, the
+ * ones the nearest direction is one of; if some mix of exactly that many moves ends within the
+ * close distance it is as short as any path, and so as short as the search's. The moves are
+ * interleaved to stay next to the straight line, and each one is checked against the zones.
+ * Anything else is left to the search.
+ */
+final class DirectLeg {
+
+    private static final double MOVE_LENGTH = 0.00015;
+    private static final double CLOSE_DISTANCE = 0.00015;
+    private static final double DIRECTION_ANGLE = 2 * Math.PI / MoveLattice.DIRECTIONS;
+    // keeps the lower bound on the safe side of floating-point rounding
+    private static final double BOUND_SLACK = 1e-9;
+
+    private DirectLeg() {
+    }
+
+    /**
+     * @return lattice offsets of a shortest path from the start to within the close distance of
+     * the goal, start first, or null if the straight line is obstructed or no shortest path is
+     * found this way
+     */
+    static long[] find(double startLng, double startLat, double goalLng, double goalLat, PreparedObstacles noFlyZones) {
+        if (!noFlyZones.sees(startLng, startLat, goalLng, goalLat)
+                || noFlyZones.isInAnyZone(startLng, startLat)) {
+            return null;
+        }
+        double legMoves = Math.hypot(goalLng - startLng, goalLat - startLat) / MOVE_LENGTH;
+        double bearing = Math.atan2(goalLat - startLat, goalLng - startLng);
+        if (bearing < 0) {
+            bearing += 2 * Math.PI;
+        }
+        int below = (int) Math.floor(bearing / DIRECTION_ANGLE) % MoveLattice.DIRECTIONS;
+        int above = (below + 1) % MoveLattice.DIRECTIONS;
+        double offBelow = bearing - below * DIRECTION_ANGLE;
+        double offNearest = Math.min(offBelow, DIRECTION_ANGLE - offBelow);
+        int moves = (int) Math.floor((legMoves - 1) / Math.cos(offNearest) - BOUND_SLACK) + 1;
+        if (moves < 1) {
+            return null;
+        }
+
+        int movesBelow = closestMix(startLng, startLat, goalLng, goalLat, below, above, moves);
+        if (movesBelow < 0) {
+            return null;
+        }
+        return interleave(startLng, startLat, below, movesBelow, above, moves, noFlyZones);
+    }
+
+    /**
+     * @return how many of the moves go the lower direction for the end nearest the goal, if that end
+     * is within the close distance of it; otherwise -1
+     */
+    private static int closestMix(double startLng, double startLat, double goalLng, double goalLat,
+                                  int below, int above, int moves) {
+        int best = -1;
+        double bestDistance = CLOSE_DISTANCE;
+        for (int movesBelow = 0; movesBelow <= moves; movesBelow++) {
+            long x = movesBelow * MoveLattice.dx(below) + (long) (moves - movesBelow) * MoveLattice.dx(above);
+            long y = movesBelow * MoveLattice.dy(below) + (long) (moves - movesBelow) * MoveLattice.dy(above);
+            double distance = Math.hypot(startLng + MoveLattice.toDegrees(x) - goalLng,
+                    startLat + MoveLattice.toDegrees(y) - goalLat);
+            if (distance < bestDistance) {
+                best = movesBelow;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Spread the lower-direction moves evenly among the others and check every move
+     * @return the offsets, or null if a move is blocked
+     */
+    private static long[] interleave(double startLng, double startLat, int below, int movesBelow, int above,
+                                     int moves, PreparedObstacles noFlyZones) {
+        long[] offsets = new long[2 * (moves + 1)];
+        long x = 0;
+        long y = 0;
+        int takenBelow = 0;
+        for (int move = 1; move <= moves; move++) {
+            // the lower-direction moves due after this many moves, rounded to the nearest
+            int dueBelow = (int) (((long) move * movesBelow * 2 + moves) / (2L * moves));
+            int direction = dueBelow > takenBelow ? below : above;
+            if (direction == below) {
+                takenBelow++;
+            }
+            long nextX = x + MoveLattice.dx(direction);
+            long nextY = y + MoveLattice.dy(direction);
+            if (noFlyZones.blocks(startLng + MoveLattice.toDegrees(x), startLat + MoveLattice.toDegrees(y),
+                    startLng + MoveLattice.toDegrees(nextX), startLat + MoveLattice.toDegrees(nextY))) {
+                return null;
+            }
+            x = nextX;
+            y = nextY;
+            offsets[2 * move] = x;
+            offsets[2 * move + 1] = y;
+        }
+        return offsets;
+    }
+}
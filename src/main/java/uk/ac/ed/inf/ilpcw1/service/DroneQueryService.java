@@ -13,6 +13,7 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -25,13 +26,23 @@ public class DroneQueryService {
     private final ILPServiceClient ilpServiceClient;
     private final PathfindingService pathfindingService;
     private final RestService restService;
+    private final AtomicReference<FleetIndex> fleetIndex = new AtomicReference<>();
 
 
-    @Autowired
+    /**
+     * For use outside Spring: every service built this way shares one path search, with its
+     * caches and background threads, instead of each starting its own
+     */
     public DroneQueryService(ILPServiceClient ilpServiceClient, RestService restService) {
+        this(ilpServiceClient, restService, SharedPathfinding.INSTANCE);
+    }
+
+    @Autowired
+    public DroneQueryService(ILPServiceClient ilpServiceClient, RestService restService,
+                             PathfindingService pathfindingService) {
         this.ilpServiceClient = ilpServiceClient;
         this.restService = restService;
-        this.pathfindingService = new PathfindingService(new RestService());
+        this.pathfindingService = pathfindingService;
     }
 
 
@@ -256,8 +267,9 @@ public class DroneQueryService {
         List<Drone> allDrones = ilpServiceClient.getAllDrones();
         List<DroneServicePointRequest> dronesForServicePoints = ilpServiceClient.getDroneAvailability();
 
-        // build availability map <droneID, availabilityDetails>
-        Map<String, List<DroneAvailabilityDetails>> availabilityMap = buildAvailabilityMap(dronesForServicePoints);
+        // availability map <droneID, availabilityDetails>, shared while the reference data is unchanged
+        Map<String, List<DroneAvailabilityDetails>> availabilityMap =
+                fleetIndex(allDrones, dronesForServicePoints, ilpServiceClient.getServicePoints()).availabilityByDrone();
 
         logger.info("Built availability map for {} drones", availabilityMap.size());
 
@@ -418,19 +430,26 @@ public class DroneQueryService {
     }
 
     /**
-     * Helper method to build a map of drone availability
+     * Lookup maps for the given reference data, rebuilt only when one of the lists changed.
+     * The client hands out the same list instances until the upstream data changes, so in the
+     * steady state every request shares one index.
      *
-     * @param allAvailabilityData list of drone availability data from service points
-     * @return map of drone ID to list of availability details
+     * @param allDrones              all drones
+     * @param dronesForServicePoints drone availability at service points
+     * @param servicePoints          all service points
+     * @return drone, home service point and availability lookups
      */
-    private Map<String, List<DroneAvailabilityDetails>> buildAvailabilityMap(List<DroneServicePointRequest> allAvailabilityData) {
-        Map<String, List<DroneAvailabilityDetails>> availabilityMap = new HashMap<>();
-        for (DroneServicePointRequest servicePoint : allAvailabilityData) {
-            for (DronesAtServicePoint drone : servicePoint.getDrones()) {
-                availabilityMap.put(String.valueOf(drone.getId()), drone.getAvailable());
-            }
+    private FleetIndex fleetIndex(List<Drone> allDrones,
+                                  List<DroneServicePointRequest> dronesForServicePoints,
+                                  List<ServicePoints> servicePoints) {
+        FleetIndex current = fleetIndex.get();
+        if (current != null && current.isFor(allDrones, dronesForServicePoints, servicePoints)) {
+            return current;
         }
-        return availabilityMap;
+        FleetIndex rebuilt = FleetIndex.build(allDrones, dronesForServicePoints, servicePoints);
+        fleetIndex.set(rebuilt);
+        logger.info("Built fleet index for {} drones", rebuilt.droneById().size());
+        return rebuilt;
     }
 
     /**
@@ -535,19 +554,20 @@ public class DroneQueryService {
         // fetch service points locations
         List<ServicePoints> servicePoints = ilpServiceClient.getServicePoints();
 
-        // build availability map
-        Map<String, List<DroneAvailabilityDetails>> availabilityMap = buildAvailabilityMap(dronesForServicePoints);
+        // lookup maps built once per reference data version
+        FleetIndex index = fleetIndex(allDrones, dronesForServicePoints, servicePoints);
+
+        // availability map
+        Map<String, List<DroneAvailabilityDetails>> availabilityMap = index.availabilityByDrone();
 
         // ID to Drone object map
-        Map<String, Drone> droneLookup = allDrones.stream()
-                .collect(Collectors.toMap(Drone::getId, drone -> drone));
+        Map<String, Drone> droneLookup = index.droneById();
 
         // ID to home service point map
-        Map<String, ServicePoints> droneToServicePoint = mapDronesToServicePoints(
-                droneLookup.keySet().stream().toList(),
-                dronesForServicePoints,
-                servicePoints
-        );
+        Map<String, ServicePoints> droneToServicePoint = index.homeServicePoint();
+
+        // distances around the no-fly zones from each service point
+        prepareReachability(servicePoints, restrictedAreas, index);
 
         List<DronePathDetails> finalDronePaths = assignDispatchesToMultipleDrones(
                 new ArrayList<>(dispatches),
@@ -1043,9 +1063,16 @@ public class DroneQueryService {
             Drone drone = droneLookup.get(droneId);
             ServicePoints startPoint = droneToServicePoint.get(droneId);
 
-            // euclidean Check
-            double distOut = restService.calculateDistance(startPoint.getLocation(), firstTarget);
-            double distBack = restService.calculateDistance(lastTarget, startPoint.getLocation());
+            // range check: euclidean, or around the no-fly zones once the service point's distances are built
+            // (the bound allows for each leg ending within 0.00015 of its target; the way back may end that
+            // much short of the service point too)
+            double distOut = Math.max(
+                    restService.calculateDistance(startPoint.getLocation(), firstTarget),
+                    pathfindingService.flightDistanceAtLeast(startPoint.getLocation(), firstTarget, restrictedAreas));
+            double distBack = Math.max(
+                    restService.calculateDistance(lastTarget, startPoint.getLocation()),
+                    pathfindingService.flightDistanceAtLeast(startPoint.getLocation(), lastTarget, restrictedAreas)
+                            - 0.00015);
             double minEuclideanDistance = distOut + routeFixedDist + distBack;
             int minPossibleMoves = (int) Math.ceil(minEuclideanDistance / 0.00015);
 
@@ -1276,36 +1303,16 @@ public class DroneQueryService {
     }
 
     /**
-     * Helper method to map drones to their service points
-     *
-     * @param droneIds               list of drone IDs
-     * @param dronesForServicePoints location of drones at service points
-     * @param servicePoints          list of service points
-     * @return map of drone ID to ServicePoints
+     * Start building the distances from each service point around the restricted areas, in the
+     * background once per set of areas, for the range checks of the drones based there
      */
-    private Map<String, ServicePoints> mapDronesToServicePoints(List<String> droneIds,
-                                                                List<DroneServicePointRequest> dronesForServicePoints,
-                                                                List<ServicePoints> servicePoints) {
-        Map<String, ServicePoints> droneServicePointMap = new HashMap<>();
-
-        // build a map of service point ID to ServicePoints object for quick lookup
-        Map<Integer, ServicePoints> servicePointMap = servicePoints.stream()
-                .collect(Collectors.toMap(ServicePoints::getId, sp -> sp));
-
-        for (String droneId : droneIds) {
-            for (DroneServicePointRequest dsp : dronesForServicePoints) {
-                for (DronesAtServicePoint droneAtSP : dsp.getDrones()) {
-                    if (droneAtSP.getId().equals(droneId)) {
-                        ServicePoints sp = servicePointMap.get(dsp.getServicePointId());
-                        if (sp != null) {
-                            droneServicePointMap.put(droneId, sp);
-                        }
-                    }
-                }
-            }
-        }
-
-        return droneServicePointMap;
+    private void prepareReachability(List<ServicePoints> servicePoints, List<RestrictedArea> restrictedAreas,
+                                     FleetIndex index) {
+        // a drone goes out and back, so it never gets further than half its moves from home
+        pathfindingService.prepareReachability(
+                servicePoints.stream().map(ServicePoints::getLocation).filter(Objects::nonNull).toList(),
+                restrictedAreas,
+                index.largestMaxMoves() / 2);
     }
 
     /**
@@ -1322,15 +1329,12 @@ public class DroneQueryService {
         List<ServicePoints> servicePoints = ilpServiceClient.getServicePoints();
         List<RestrictedArea> restrictedAreas = ilpServiceClient.getRestrictedAreas();
 
-        // 2. Prepare Maps (reuse existing helpers)
-        Map<String, List<DroneAvailabilityDetails>> availabilityMap = buildAvailabilityMap(dronesForServicePoints);
-        Map<String, Drone> droneLookup = allDrones.stream()
-                .collect(Collectors.toMap(Drone::getId, drone -> drone));
-        Map<String, ServicePoints> droneToServicePoint = mapDronesToServicePoints(
-                droneLookup.keySet().stream().toList(),
-                dronesForServicePoints,
-                servicePoints
-        );
+        // 2. Prepare Maps (shared per reference data version)
+        FleetIndex index = fleetIndex(allDrones, dronesForServicePoints, servicePoints);
+        Map<String, List<DroneAvailabilityDetails>> availabilityMap = index.availabilityByDrone();
+        Map<String, Drone> droneLookup = index.droneById();
+        Map<String, ServicePoints> droneToServicePoint = index.homeServicePoint();
+        prepareReachability(servicePoints, restrictedAreas, index);
 
         // 3. Find a single drone for all dispatches
         // passing an empty set for ignoredDroneIds as we want to consider all drones
@@ -1368,4 +1372,9 @@ public class DroneQueryService {
                 .build();
 
     }
-}
\ No newline at end of file
+
+    // created on first use, so a service built by Spring never starts it
+    private static final class SharedPathfinding {
+        static final PathfindingService INSTANCE = new PathfindingService(new RestService());
+    }
+}
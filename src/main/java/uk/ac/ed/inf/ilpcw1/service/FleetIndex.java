@@ -0,0 +1,133 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import uk.ac.ed.inf.ilpcw1.data.Drone;
+import uk.ac.ed.inf.ilpcw1.data.DroneAvailabilityDetails;
+import uk.ac.ed.inf.ilpcw1.data.DroneServicePointRequest;
+import uk.ac.ed.inf.ilpcw1.data.DronesAtServicePoint;
+import uk.ac.ed.inf.ilpcw1.data.ServicePoints;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only lookup tables derived from one version of the reference data: drone id to drone,
+ * to home service point and to availability, and the fleet's longest range. Built once per
+ * version of the source lists and shared by all requests until one of them changes.
+ */
+final class FleetIndex {
+
+    private final List<Drone> drones;
+    private final List<DroneServicePointRequest> availability;
+    private final List<ServicePoints> servicePoints;
+
+    private final Map<String, Drone> droneById;
+    private final Map<String, ServicePoints> homeServicePoint;
+    private final Map<String, List<DroneAvailabilityDetails>> availabilityByDrone;
+    private final int largestMaxMoves;
+
+    private FleetIndex(List<Drone> drones,
+                       List<DroneServicePointRequest> availability,
+                       List<ServicePoints> servicePoints) {
+        this.drones = drones;
+        this.availability = availability;
+        this.servicePoints = servicePoints;
+
+        Map<String, Drone> byId = drones.stream()
+                .collect(Collectors.toMap(Drone::getId, drone -> drone));
+        this.droneById = Collections.unmodifiableMap(byId);
+        this.homeServicePoint = Collections.unmodifiableMap(buildHomeServicePoints(byId, availability, servicePoints));
+        this.availabilityByDrone = Collections.unmodifiableMap(buildAvailability(availability));
+        this.largestMaxMoves = drones.stream()
+                .filter(drone -> drone.getCapability() != null && drone.getCapability().getMaxMoves() != null)
+                .mapToInt(drone -> drone.getCapability().getMaxMoves())
+                .max()
+                .orElse(0);
+    }
+
+    /**
+     * Build the index for the given reference data
+     * @param drones        all drones
+     * @param availability  drones available at each service point
+     * @param servicePoints all service points
+     * @return the index
+     */
+    static FleetIndex build(List<Drone> drones,
+                            List<DroneServicePointRequest> availability,
+                            List<ServicePoints> servicePoints) {
+        return new FleetIndex(drones, availability, servicePoints);
+    }
+
+    /**
+     * @return true if this index was built from exactly these lists
+     */
+    boolean isFor(List<Drone> drones,
+                  List<DroneServicePointRequest> availability,
+                  List<ServicePoints> servicePoints) {
+        return this.drones == drones && this.availability == availability && this.servicePoints == servicePoints;
+    }
+
+    Map<String, Drone> droneById() {
+        return droneById;
+    }
+
+    Map<String, ServicePoints> homeServicePoint() {
+        return homeServicePoint;
+    }
+
+    Map<String, List<DroneAvailabilityDetails>> availabilityByDrone() {
+        return availabilityByDrone;
+    }
+
+    /**
+     * @return the most moves any drone can fly, zero if none has a limit
+     */
+    int largestMaxMoves() {
+        return largestMaxMoves;
+    }
+
+    /**
+     * One pass over the availability data instead of drones x service points x drones-at-point.
+     * A drone listed at several service points keeps the last one, and entries are inserted in
+     * drone id order, exactly as the per-drone scan did.
+     */
+    private static Map<String, ServicePoints> buildHomeServicePoints(Map<String, Drone> droneById,
+                                                                     List<DroneServicePointRequest> availability,
+                                                                     List<ServicePoints> servicePoints) {
+        Map<Integer, ServicePoints> servicePointById = servicePoints.stream()
+                .collect(Collectors.toMap(ServicePoints::getId, sp -> sp));
+
+        Map<String, ServicePoints> lastSeen = new HashMap<>();
+        for (DroneServicePointRequest dsp : availability) {
+            ServicePoints sp = servicePointById.get(dsp.getServicePointId());
+            if (sp == null) {
+                continue;
+            }
+            for (DronesAtServicePoint droneAtSP : dsp.getDrones()) {
+                lastSeen.put(droneAtSP.getId(), sp);
+            }
+        }
+
+        Map<String, ServicePoints> home = new HashMap<>();
+        for (String droneId : droneById.keySet()) {
+            ServicePoints sp = lastSeen.get(droneId);
+            if (sp != null) {
+                home.put(droneId, sp);
+            }
+        }
+        return home;
+    }
+
+    private static Map<String, List<DroneAvailabilityDetails>> buildAvailability(
+            List<DroneServicePointRequest> availability) {
+        Map<String, List<DroneAvailabilityDetails>> availabilityMap = new HashMap<>();
+        for (DroneServicePointRequest servicePoint : availability) {
+            for (DronesAtServicePoint drone : servicePoint.getDrones()) {
+                availabilityMap.put(String.valueOf(drone.getId()), drone.getAvailable());
+            }
+        }
+        return availabilityMap;
+    }
+}
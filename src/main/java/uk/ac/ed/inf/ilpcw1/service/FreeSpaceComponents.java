@@ -0,0 +1,126 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Connected components of the free space around the no-fly zones, labelled over the cells of
+ * the {@link OccupancyGrid}. Only cells entirely inside a zone are left out: blocked cells, and
+ * boundary cells that the edges of some other zone run through but that lie wholly inside one
+ * zone, as where zones overlap. Every other cell joins its eight neighbours, so the labels
+ * over-connect: any flight between two points stays in cells of one component, and points in
+ * different components can never be joined.
+ * That lets a leg to a goal walled in by zones be given up at once instead of after the whole
+ * search budget. Everything beyond the grid is one component with its padded border.
+ * Built once per version of the zones; immutable afterwards.
+ */
+final class FreeSpaceComponents {
+
+    private static final int BLOCKED = 0;
+
+    /**
+     * Tests whether a rectangle lies entirely inside one zone
+     */
+    @FunctionalInterface
+    interface RectangleTest {
+        boolean test(double west, double south, double east, double north);
+    }
+
+    private final OccupancyGrid grid;
+    // component of each cell, numbered from 1; BLOCKED for cells inside a zone
+    private final int[] labels;
+    private final int outside;
+
+    private FreeSpaceComponents(OccupancyGrid grid, RectangleTest insideOneZone) {
+        this.grid = grid;
+        this.labels = new int[grid.columns() * grid.rows()];
+        label(insideOneZone);
+        // the grid's padding leaves its corner free and joined to the space beyond
+        this.outside = labels[0];
+    }
+
+    /**
+     * Label the free space of a grid
+     * @param insideOneZone exact test for boundary cells
+     */
+    static FreeSpaceComponents build(OccupancyGrid grid, RectangleTest insideOneZone) {
+        return new FreeSpaceComponents(grid, insideOneZone);
+    }
+
+    /**
+     * Breadth-first flood fill from each unlabelled free cell in turn
+     */
+    private void label(RectangleTest insideOneZone) {
+        int columns = grid.columns();
+        int rows = grid.rows();
+        double size = grid.cellSize();
+        boolean[] inside = new boolean[labels.length];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                inside[row * columns + column] = grid.isBlocked(column, row) || (grid.isBoundary(column, row)
+                        && insideOneZone.test(grid.westOf(column), grid.southOf(row),
+                        grid.westOf(column) + size, grid.southOf(row) + size));
+            }
+        }
+        int[] queue = new int[labels.length];
+        int next = 0;
+        for (int seed = 0; seed < labels.length; seed++) {
+            if (labels[seed] != BLOCKED || inside[seed]) {
+                continue;
+            }
+            int component = ++next;
+            int head = 0;
+            int tail = 0;
+            labels[seed] = component;
+            queue[tail++] = seed;
+            while (head < tail) {
+                int cell = queue[head++];
+                int column = cell % columns;
+                int row = cell / columns;
+                for (int dy = -1; dy <= 1; dy++) {
+                    int neighbourRow = row + dy;
+                    if (neighbourRow < 0 || neighbourRow >= rows) {
+                        continue;
+                    }
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int neighbourColumn = column + dx;
+                        if (neighbourColumn < 0 || neighbourColumn >= columns) {
+                            continue;
+                        }
+                        int neighbour = neighbourRow * columns + neighbourColumn;
+                        if (labels[neighbour] == BLOCKED && !inside[neighbour]) {
+                            labels[neighbour] = component;
+                            queue[tail++] = neighbour;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int labelAt(int column, int row) {
+        if (column < 0 || column >= grid.columns() || row < 0 || row >= grid.rows()) {
+            return outside;
+        }
+        return labels[row * grid.columns() + column];
+    }
+
+    /**
+     * Whether no flight from the start can end within the given distance of the goal
+     * @return true only when that is certain; false for a start inside a zone, which the search rejects itself
+     */
+    boolean separates(double startLng, double startLat, double goalLng, double goalLat, double withinDistance) {
+        int start = labelAt(grid.columnOf(startLng), grid.rowOf(startLat));
+        if (start == BLOCKED) {
+            return false;
+        }
+        // every cell the square around the goal touches
+        int lastColumn = grid.columnOf(goalLng + withinDistance);
+        int lastRow = grid.rowOf(goalLat + withinDistance);
+        for (int row = grid.rowOf(goalLat - withinDistance); row <= lastRow; row++) {
+            for (int column = grid.columnOf(goalLng - withinDistance); column <= lastColumn; column++) {
+                if (labelAt(column, row) == start) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -1,125 +1,659 @@
 package uk.ac.ed.inf.ilpcw1.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.ilpcw1.config.ReferenceDataProperties;
 import uk.ac.ed.inf.ilpcw1.data.Drone;
 import uk.ac.ed.inf.ilpcw1.data.DroneServicePointRequest;
+import uk.ac.ed.inf.ilpcw1.data.ReferenceDataSnapshot;
 import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
 import uk.ac.ed.inf.ilpcw1.data.ServicePoints;
+import uk.ac.ed.inf.ilpcw1.exception.UpstreamUnavailableException;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
- * Service client for fetching data from the ILP REST service
+ * Service client for fetching data from the ILP REST service.
+ * Reference data is served from an in-memory {@link ReferenceDataSnapshot} which a
+ * background refresher rebuilds on a fixed interval, so request threads never wait
+ * on the upstream once the first snapshot has been loaded.
+ * Unchanged upstream resources are detected and reused without re-parsing; drones and
+ * restricted areas are stream-parsed into columnar storage rather than bound to beans.
+ * Reads never wait on a refresh once data exists: a snapshot older than the configured max
+ * age is returned as-is while a refresh runs in the background, a failing resource falls
+ * back to its last good value behind a per-resource circuit breaker, and slow requests can
+ * optionally be hedged once they exceed the resource's p95 latency.
+ * When a snapshot file is configured, every newly published snapshot is persisted to it and
+ * the next start serves that data straight away while it is revalidated in the background.
  */
 @Service
-public class ILPServiceClient {
+public class ILPServiceClient implements MeterBinder {
     private static final Logger logger = LoggerFactory.getLogger(ILPServiceClient.class);
 
     private final String ilpEndpoint;
     private final RestTemplate restTemplate;
+    private final ReferenceDataProperties properties;
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
+    private final ObjectMapper objectMapper;
+
+    private final UpstreamResource<Drone> droneResource;
+    private final UpstreamResource<DroneServicePointRequest> availabilityResource;
+    private final UpstreamResource<ServicePoints> servicePointResource;
+    private final UpstreamResource<RestrictedArea> restrictedAreaResource;
+
+    private final SingleFlight<UpstreamResource<?>, List<?>> resourceFlights;
+    private final SingleFlight<String, ReferenceDataSnapshot> refreshFlight = new SingleFlight<>(Duration.ZERO);
+
+    private final AtomicReference<ReferenceDataSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    private final AtomicLong unchangedSnapshots = new AtomicLong();
+    private final AtomicLong lastValidatedNanos = new AtomicLong();
+    private final AtomicBoolean backgroundRefreshRunning = new AtomicBoolean();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
 
     //
     @Autowired
-    public ILPServiceClient(String ilpEndpoint) {
+    public ILPServiceClient(String ilpEndpoint, RestTemplate restTemplate, ObjectMapper objectMapper,
+                            ReferenceDataProperties properties) {
         this.ilpEndpoint = ilpEndpoint;
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.resourceFlights = new SingleFlight<>(properties.getCoalesceWindow());
+        this.droneResource = new UpstreamResource<>("drones", "drones",
+                body -> ReferenceDataParser.parseDrones(objectMapper.getFactory(), body).asList(),
+                newCircuitBreaker());
+        this.availabilityResource = new UpstreamResource<>("drone availability", "drones-for-service-points",
+                body -> readList(body, DroneServicePointRequest[].class), newCircuitBreaker());
+        this.servicePointResource = new UpstreamResource<>("service points", "service-points",
+                body -> readList(body, ServicePoints[].class), newCircuitBreaker());
+        this.restrictedAreaResource = new UpstreamResource<>("restricted areas", "restricted-areas",
+                body -> ReferenceDataParser.parseRestrictedAreas(objectMapper.getFactory(), body).asList(),
+                newCircuitBreaker());
+    }
+
+    private <T> List<T> readList(byte[] body, Class<T[]> arrayType) throws IOException {
+        T[] parsed = objectMapper.readValue(body, arrayType);
+        return parsed == null ? List.of() : Collections.unmodifiableList(Arrays.asList(parsed));
+    }
+
+    private CircuitBreaker newCircuitBreaker() {
+        return new CircuitBreaker(properties.getCircuitBreaker().getFailureThreshold(),
+                properties.getCircuitBreaker().getOpenDuration());
     }
 
     /**
-     * Fetch all drones from the ILP REST Service
-     * @return List of all drones
+     * Warm-start from the persisted snapshot file, if one is configured and readable.
+     * The loaded snapshot is marked stale so the first read revalidates it in the background;
+     * the stored validators make that revalidation a 304 or a hash match when nothing changed.
      */
-    public List<Drone> getAllDrones() {
+    @PostConstruct
+    void loadPersistedSnapshot() {
+        Path file = snapshotFile();
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        ReferenceDataCodec.Persisted persisted;
         try {
-            String url = ilpEndpoint + "drones";
-            logger.info("Fetching drones from: {}", url);
+            persisted = ReferenceDataCodec.read(file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable reference data snapshot file {}: {}", file, e.toString());
+            return;
+        }
 
-            Drone[] drones = restTemplate.getForObject(url, Drone[].class);
+        droneResource.update(persisted.drones());
+        availabilityResource.update(persisted.availability());
+        servicePointResource.update(persisted.servicePoints());
+        restrictedAreaResource.update(persisted.restrictedAreas());
+        snapshotVersion.set(persisted.version());
+        ReferenceDataSnapshot loaded = new ReferenceDataSnapshot(
+                persisted.version(),
+                persisted.fetchedAt(),
+                persisted.drones().value(),
+                persisted.availability().value(),
+                persisted.servicePoints().value(),
+                persisted.restrictedAreas().value()
+        );
+        if (snapshot.compareAndSet(null, loaded)) {
+            lastValidatedNanos.set(System.nanoTime() - properties.getMaxAge().toNanos() - 1);
+            logger.info("Warm-started reference data snapshot version {} fetched at {} from {} in {} ms",
+                    loaded.version(), loaded.fetchedAt(), file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
 
-            if (drones == null) {
-                logger.warn("No drones returned from ILP service");
-                return List.of();
-            }
-            logger.info("Successfully fetched {} drones", drones.length);
-            return Arrays.asList(drones);
-        } catch (Exception e) {
-            logger.error("Error fetching drones from ILP service", e);
-            throw new RuntimeException("Failed to fetch drones from ILP service", e);
+    private Path snapshotFile() {
+        String file = properties.getSnapshotFile();
+        return file == null || file.isBlank() ? null : Path.of(file);
+    }
+
+    /**
+     * Persist a published snapshot in the background; failures only cost the warm start
+     * @param published the snapshot just published
+     */
+    private void persistSnapshot(ReferenceDataSnapshot published) {
+        Path file = snapshotFile();
+        if (file == null) {
+            return;
+        }
+        ReferenceDataCodec.Persisted persisted = new ReferenceDataCodec.Persisted(
+                published.version(),
+                published.fetchedAt(),
+                persistedVersion(droneResource, published.drones()),
+                persistedVersion(availabilityResource, published.availability()),
+                persistedVersion(servicePointResource, published.servicePoints()),
+                persistedVersion(restrictedAreaResource, published.restrictedAreas())
+        );
+        try {
+            fetchExecutor.execute(() -> {
+                try {
+                    ReferenceDataCodec.write(file, persisted);
+                    logger.info("Persisted reference data snapshot version {} to {}", published.version(), file);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not persist reference data snapshot to {}: {}", file, e.toString());
+                }
+            });
+        } catch (RuntimeException e) {
+            // executor shut down
+            logger.debug("Skipping snapshot persistence during shutdown");
         }
     }
 
     /**
-     * Fetch all drone availability from the ILP REST Service
+     * Validators to store alongside a published list; a list that did not come from the
+     * resource's current version (e.g. an empty body) is stored without them
+     */
+    private static <T> UpstreamResource.Version<T> persistedVersion(UpstreamResource<T> resource, List<T> published) {
+        UpstreamResource.Version<T> current = resource.current();
+        if (current != null && current.value() == published) {
+            return current;
+        }
+        return new UpstreamResource.Version<>(null, null, new byte[0], published);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Get all drones from the current reference data snapshot
+     * @return List of all drones
+     */
+    public List<Drone> getAllDrones() {
+        return getSnapshot().drones();
+    }
+
+    /**
+     * Get all drone availability from the current reference data snapshot
      * @return List of all drone availability at service points
      */
     public List<DroneServicePointRequest> getDroneAvailability() {
+        return getSnapshot().availability();
+    }
+
+    /**
+     * Get all service points from the current reference data snapshot
+     * @return List of all service points
+     */
+    public List<ServicePoints> getServicePoints() {
+        return getSnapshot().servicePoints();
+    }
+
+    /**
+     * Get all restricted areas from the current reference data snapshot
+     * @return List of all restricted areas
+     */
+    public List<RestrictedArea> getRestrictedAreas() {
+        return getSnapshot().restrictedAreas();
+    }
+
+    /**
+     * Get the current reference data snapshot.
+     * Only the very first call (before the refresher has published anything) fetches from
+     * the upstream, and concurrent first callers share that one fetch; every later call is a
+     * plain volatile read. A snapshot that has not been revalidated within the max age is
+     * still returned immediately, and a single background refresh is started.
+     * @return the current snapshot
+     */
+    public ReferenceDataSnapshot getSnapshot() {
+        ReferenceDataSnapshot current = snapshot.get();
+        if (current == null) {
+            return refreshSnapshot();
+        }
+        if (System.nanoTime() - lastValidatedNanos.get() > properties.getMaxAge().toNanos()) {
+            refreshInBackground();
+        }
+        return current;
+    }
+
+    private void refreshInBackground() {
+        if (!backgroundRefreshRunning.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            String url = ilpEndpoint + "drones-for-service-points";
-            logger.info("Fetching drone availability from: {}", url);
+            fetchExecutor.execute(() -> {
+                try {
+                    scheduledRefresh();
+                } finally {
+                    backgroundRefreshRunning.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // executor shut down
+            backgroundRefreshRunning.set(false);
+        }
+    }
 
-            DroneServicePointRequest[] availability = restTemplate.getForObject(url, DroneServicePointRequest[].class);
+    /**
+     * Background refresh of the reference data snapshot.
+     * A failed refresh keeps serving the previous snapshot.
+     */
+    @Scheduled(fixedDelayString = "${ilp.reference-data.refresh-interval-ms:60000}",
+            initialDelayString = "${ilp.reference-data.initial-delay-ms:0}")
+    public void scheduledRefresh() {
+        try {
+            refreshSnapshot();
+        } catch (RuntimeException e) {
+            ReferenceDataSnapshot current = snapshot.get();
+            logger.warn("Reference data refresh failed, keeping snapshot version {}",
+                    current != null ? current.version() : "none", e);
+        }
+    }
 
-            if (availability == null) {
-                logger.warn("No drone availability returned from ILP service");
-                return List.of();
-            }
-            logger.info("Successfully fetched availability for {} service points", availability.length);
-            return Arrays.asList(availability);
-        } catch (Exception e) {
-            logger.error("Error fetching drone availability from ILP service", e);
-            throw new RuntimeException("Failed to fetch drone availability from ILP service", e);
+    /**
+     * Fetch all reference data from the ILP REST Service and publish it as a new snapshot.
+     * Overlapping refreshes (scheduler, cold start) are coalesced into one.
+     * @return the newly published snapshot
+     */
+    public ReferenceDataSnapshot refreshSnapshot() {
+        return refreshFlight.execute("snapshot", this::publishLatest);
+    }
+
+    private ReferenceDataSnapshot publishLatest() {
+        ReferenceDataSnapshot next = fetchAll();
+        lastValidatedNanos.set(System.nanoTime());
+        if (next == snapshot.get()) {
+            logger.info("Reference data unchanged, keeping snapshot version {}", next.version());
+            return next;
         }
+        snapshot.set(next);
+        logger.info("Published reference data snapshot version {} ({} drones, {} service points, {} restricted areas)",
+                next.version(), next.drones().size(), next.servicePoints().size(), next.restrictedAreas().size());
+        persistSnapshot(next);
+        return next;
     }
 
     /**
-     * Fetch all service points from the ILP REST Service
-     * @return List of all service points
+     * Fetch drones, availability, service points and restricted areas concurrently.
+     * Each resource is bounded by the configured resource timeout and the whole bundle by the
+     * fetch deadline, so the latency is that of the slowest single call rather than the sum.
+     * A resource that fails or times out falls back to its last good value; only a resource
+     * that has never been fetched successfully fails the whole bundle.
+     * @return a snapshot holding all four resources; the current snapshot itself when none changed
+     * @throws UpstreamUnavailableException if a resource failed and has no previous value
      */
-    public List<ServicePoints> getServicePoints() {
+    public ReferenceDataSnapshot fetchAll() {
+        long resourceTimeoutMs = properties.getResourceTimeout().toMillis();
+
+        CompletableFuture<List<Drone>> dronesFuture = fetchAsync(droneResource, this::fetchDrones, resourceTimeoutMs);
+        CompletableFuture<List<DroneServicePointRequest>> availabilityFuture =
+                fetchAsync(availabilityResource, this::fetchDroneAvailability, resourceTimeoutMs);
+        CompletableFuture<List<ServicePoints>> servicePointsFuture =
+                fetchAsync(servicePointResource, this::fetchServicePoints, resourceTimeoutMs);
+        CompletableFuture<List<RestrictedArea>> restrictedAreasFuture =
+                fetchAsync(restrictedAreaResource, this::fetchRestrictedAreas, resourceTimeoutMs);
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(dronesFuture, availabilityFuture,
+                servicePointsFuture, restrictedAreasFuture);
         try {
-            String url = ilpEndpoint + "service-points";
-            logger.info("Fetching service points from: {}", url);
+            all.get(properties.getFetchDeadline().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException("Interrupted while fetching reference data from ILP service", e);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Reference data fetch did not complete cleanly: {}", e.toString());
+        }
 
-            ServicePoints[] servicePoints = restTemplate.getForObject(url, ServicePoints[].class);
+        List<Drone> drones = settle(dronesFuture, droneResource);
+        List<DroneServicePointRequest> availability = settle(availabilityFuture, availabilityResource);
+        List<ServicePoints> servicePoints = settle(servicePointsFuture, servicePointResource);
+        List<RestrictedArea> restrictedAreas = settle(restrictedAreasFuture, restrictedAreaResource);
+
+        ReferenceDataSnapshot current = snapshot.get();
+        if (current != null
+                && current.drones() == drones
+                && current.availability() == availability
+                && current.servicePoints() == servicePoints
+                && current.restrictedAreas() == restrictedAreas) {
+            unchangedSnapshots.incrementAndGet();
+            return current;
+        }
 
-            if (servicePoints == null) {
-                logger.warn("No service points returned from ILP service");
-                return List.of();
+        return new ReferenceDataSnapshot(
+                snapshotVersion.incrementAndGet(),
+                Instant.now(),
+                drones,
+                availability,
+                servicePoints,
+                restrictedAreas
+        );
+    }
+
+    private <T> CompletableFuture<List<T>> fetchAsync(UpstreamResource<T> resource, Supplier<List<T>> fetch,
+                                                      long timeoutMs) {
+        return CompletableFuture.supplyAsync(fetch, fetchExecutor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> lastGood(resource, e));
+    }
+
+    /**
+     * Result of a resource fetch once the overall deadline has passed
+     * @param future   the fetch, already falling back to the last good value on failure
+     * @param resource the resource being fetched
+     * @return the fetched or last good value
+     */
+    private <T> List<T> settle(CompletableFuture<List<T>> future, UpstreamResource<T> resource) {
+        if (!future.isDone()) {
+            future.cancel(true);
+            return lastGood(resource, new TimeoutException("Reference data fetch deadline exceeded"));
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
-            logger.info("Successfully fetched {} service points", servicePoints.length);
-            return Arrays.asList(servicePoints);
-        } catch (Exception e) {
-            logger.error("Error fetching service points from ILP service", e);
-            throw new RuntimeException("Failed to fetch service points from ILP service", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Fall back to the last successfully fetched value of a resource
+     * @param resource the resource whose fetch failed
+     * @param failure  why the fetch failed
+     * @return the last good value
+     * @throws UpstreamUnavailableException if the resource has never been fetched successfully
+     */
+    private <T> List<T> lastGood(UpstreamResource<T> resource, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof TimeoutException) {
+            // the call still running is counted now, and not again when it ends
+            resource.failLatestAttempt();
+        }
+        UpstreamResource.Version<T> previous = resource.current();
+        if (previous == null) {
+            throw new UpstreamUnavailableException("No " + resource.name() + " available from ILP service", cause);
         }
+        staleServed.incrementAndGet();
+        logger.warn("Serving last good {} after failed fetch: {}", resource.name(), cause.toString());
+        return previous.value();
+    }
+
+    /**
+     * Fetch all drones from the ILP REST Service
+     * @return List of all drones
+     */
+    private List<Drone> fetchDrones() {
+        return fetchResource(droneResource);
+    }
+
+    /**
+     * Fetch all drone availability from the ILP REST Service
+     * @return List of all drone availability at service points
+     */
+    private List<DroneServicePointRequest> fetchDroneAvailability() {
+        return fetchResource(availabilityResource);
+    }
+
+    /**
+     * Fetch all service points from the ILP REST Service
+     * @return List of all service points
+     */
+    private List<ServicePoints> fetchServicePoints() {
+        return fetchResource(servicePointResource);
     }
 
     /**
      * Fetch all restricted areas from the ILP REST Service
      * @return List of all restricted areas
      */
-    public List<RestrictedArea> getRestrictedAreas() {
+    private List<RestrictedArea> fetchRestrictedAreas() {
+        return fetchResource(restrictedAreaResource);
+    }
+
+    /**
+     * Fetch one resource; concurrent callers for the same resource share a single request.
+     * While the resource's circuit is open the call fails fast without touching the network.
+     * @param resource the resource to fetch
+     * @return the parsed resource
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> fetchResource(UpstreamResource<T> resource) {
+        return (List<T>) resourceFlights.execute(resource, () -> {
+            CircuitBreaker circuitBreaker = resource.circuitBreaker();
+            if (!circuitBreaker.tryAcquire()) {
+                throw new UpstreamUnavailableException("Circuit open for " + resource.name() + " from ILP service");
+            }
+            long attempt = resource.beginAttempt();
+            try {
+                List<T> value = revalidate(resource);
+                resource.settleAttempt(attempt, true);
+                return value;
+            } catch (RuntimeException e) {
+                resource.settleAttempt(attempt, false);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Fetch one resource, revalidating against the last version seen.
+     * The request carries If-None-Match / If-Modified-Since when validators are known; a 304,
+     * or a 200 whose body hashes to the previous content, returns the previous list instance
+     * without parsing it again, so nothing derived from it needs rebuilding. An empty body is
+     * recorded as an empty list with its own validators and hash.
+     * @param resource the resource to fetch
+     * @return the parsed resource, identical to the previous list when unchanged
+     */
+    private <T> List<T> revalidate(UpstreamResource<T> resource) {
         try {
-            String url = ilpEndpoint + "restricted-areas";
-            logger.info("Fetching restricted areas from: {}", url);
+            String url = ilpEndpoint + resource.path();
+            logger.info("Fetching {} from: {}", resource.name(), url);
 
-            RestrictedArea[] restrictedAreas = restTemplate.getForObject(url, RestrictedArea[].class);
+            UpstreamResource.Version<T> previous = resource.current();
+            HttpHeaders headers = new HttpHeaders();
+            if (previous != null && previous.etag() != null) {
+                headers.setIfNoneMatch(previous.etag());
+            }
+            if (previous != null && previous.lastModified() != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+            }
+
+            ResponseEntity<byte[]> response = exchange(resource, url, new HttpEntity<>(headers));
+
+            if (previous != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                resource.recordUnchanged();
+                logger.info("{} not modified since last fetch", resource.name());
+                return previous.value();
+            }
 
-            if (restrictedAreas == null) {
-                logger.warn("No restricted areas returned from ILP service");
-                return List.of();
+            byte[] body = response.getBody();
+            if (body == null) {
+                body = new byte[0];
             }
-            logger.info("Successfully fetched {} restricted areas", restrictedAreas.length);
-            return Arrays.asList(restrictedAreas);
+
+            byte[] contentHash = MessageDigest.getInstance("SHA-256").digest(body);
+            String etag = response.getHeaders().getETag();
+            String lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+
+            if (previous != null && Arrays.equals(previous.contentHash(), contentHash)) {
+                resource.update(new UpstreamResource.Version<>(etag, lastModified, contentHash, previous.value()));
+                resource.recordUnchanged();
+                logger.info("{} content unchanged since last fetch", resource.name());
+                return previous.value();
+            }
+
+            List<T> value;
+            if (body.length == 0) {
+                // kept as a version of its own, so a later 304 keeps serving the empty list
+                logger.warn("No {} returned from ILP service", resource.name());
+                value = List.of();
+            } else {
+                value = resource.parser().parse(body);
+            }
+            resource.update(new UpstreamResource.Version<>(etag, lastModified, contentHash, value));
+            logger.info("Successfully fetched {} {}", value.size(), resource.name());
+            return value;
         } catch (Exception e) {
-            logger.error("Error fetching restricted areas from ILP service", e);
-            throw new RuntimeException("Failed to fetch restricted areas from ILP service", e);
+            logger.error("Error fetching {} from ILP service", resource.name(), e);
+            throw new UpstreamUnavailableException("Failed to fetch " + resource.name() + " from ILP service", e);
+        }
+    }
+
+    /**
+     * GET a resource, hedging the request when enabled.
+     * Once the resource has enough latency samples, a request still running after the p95
+     * latency gets a second identical request, and whichever succeeds first is used.
+     * @param resource the resource being fetched, supplying the latency history
+     * @param url      full resource URL
+     * @param request  request entity carrying the conditional headers
+     * @return the first successful response
+     */
+    private ResponseEntity<byte[]> exchange(UpstreamResource<?> resource, String url, HttpEntity<?> request)
+            throws Exception {
+        long start = System.nanoTime();
+        long hedgeAfterNanos = hedgeDelayNanos(resource);
+        if (hedgeAfterNanos < 0) {
+            ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.GET, request, byte[].class);
+            resource.recordLatency(System.nanoTime() - start);
+            return response;
+        }
+
+        CompletableFuture<ResponseEntity<byte[]>> primary = CompletableFuture.supplyAsync(
+                () -> restTemplate.exchange(url, HttpMethod.GET, request, byte[].class), fetchExecutor);
+        CompletableFuture<ResponseEntity<byte[]>> winner;
+        try {
+            ResponseEntity<byte[]> response = primary.get(hedgeAfterNanos, TimeUnit.NANOSECONDS);
+            resource.recordLatency(System.nanoTime() - start);
+            return response;
+        } catch (TimeoutException e) {
+            hedgedRequests.incrementAndGet();
+            logger.info("Hedging {} request after {} ms", resource.name(), TimeUnit.NANOSECONDS.toMillis(hedgeAfterNanos));
+            CompletableFuture<ResponseEntity<byte[]>> hedge = CompletableFuture.supplyAsync(
+                    () -> restTemplate.exchange(url, HttpMethod.GET, request, byte[].class), fetchExecutor);
+            winner = firstSuccessful(primary, hedge);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+
+        try {
+            ResponseEntity<byte[]> response = winner.get(properties.getResourceTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            resource.recordLatency(System.nanoTime() - start);
+            return response;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private long hedgeDelayNanos(UpstreamResource<?> resource) {
+        ReferenceDataProperties.Hedging hedging = properties.getHedging();
+        if (!hedging.isEnabled()) {
+            return -1;
+        }
+        long p95 = resource.latencyPercentileNanos(0.95, hedging.getMinSamples());
+        return p95 < 0 ? -1 : Math.max(p95, hedging.getMinDelay().toNanos());
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> attempt : List.of(first, second)) {
+            attempt.whenComplete((value, error) -> {
+                if (error == null) {
+                    winner.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    /**
+     * Register counters of refreshes skipped because nothing changed upstream, and of the
+     * circuit breaker, stale fallback and hedging behaviour
+     * @param registry meter registry to bind to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (UpstreamResource<?> resource : List.of(droneResource, availabilityResource, servicePointResource, restrictedAreaResource)) {
+            FunctionCounter.builder("ilp.reference-data.unchanged", resource, UpstreamResource::unchangedCount)
+                    .description("Upstream fetches that found the resource unchanged and skipped parsing")
+                    .tag("resource", resource.path())
+                    .register(registry);
+        }
+        FunctionCounter.builder("ilp.reference-data.snapshot.unchanged", unchangedSnapshots, AtomicLong::get)
+                .description("Refreshes that kept the current snapshot because nothing changed")
+                .register(registry);
+        FunctionCounter.builder("ilp.reference-data.coalesced", resourceFlights, SingleFlight::coalescedCount)
+                .description("Upstream fetches served by a concurrent or recent identical fetch")
+                .register(registry);
+        for (UpstreamResource<?> resource : List.of(droneResource, availabilityResource, servicePointResource, restrictedAreaResource)) {
+            Gauge.builder("ilp.reference-data.circuit.state", resource.circuitBreaker(), cb -> cb.state().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tag("resource", resource.path())
+                    .register(registry);
+            FunctionCounter.builder("ilp.reference-data.circuit.rejected", resource.circuitBreaker(), CircuitBreaker::rejectedCount)
+                    .description("Upstream fetches short-circuited while the circuit was open")
+                    .tag("resource", resource.path())
+                    .register(registry);
         }
+        FunctionCounter.builder("ilp.reference-data.stale-served", staleServed, AtomicLong::get)
+                .description("Resource fetches that failed and fell back to the last good value")
+                .register(registry);
+        FunctionCounter.builder("ilp.reference-data.hedged", hedgedRequests, AtomicLong::get)
+                .description("Upstream requests hedged after exceeding the p95 latency")
+                .register(registry);
     }
-}
\ No newline at end of file
+}
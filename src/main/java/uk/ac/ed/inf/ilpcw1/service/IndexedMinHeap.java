@@ -0,0 +1,182 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Indexed 4-ary min-heap of int ids keyed by a double priority.
+ * Unlike {@link java.util.PriorityQueue} every id is in the heap at most once and its priority
+ * can be lowered in place ({@link #decreaseKey}), so the search never needs stale duplicates.
+ * Ids are dense non-negative ints (node ids of the search); storage grows on demand.
+ */
+final class IndexedMinHeap {
+
+    private static final int ARITY = 4;
+    private static final int ABSENT = -1;
+
+    private int[] heap;
+    private int size;
+    private int[] positionOf;
+    private double[] keyOf;
+
+    IndexedMinHeap(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        heap = new int[capacity];
+        positionOf = new int[capacity];
+        keyOf = new double[capacity];
+        Arrays.fill(positionOf, ABSENT);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return id < positionOf.length && positionOf[id] != ABSENT;
+    }
+
+    /**
+     * Add an id that is not currently in the heap
+     */
+    void insert(int id, double key) {
+        ensureIdCapacity(id);
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        keyOf[id] = key;
+        heap[size] = id;
+        positionOf[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lower the priority of an id already in the heap
+     */
+    void decreaseKey(int id, double key) {
+        keyOf[id] = key;
+        siftUp(positionOf[id]);
+    }
+
+    /**
+     * Insert the id, or lower its priority if it is already queued
+     */
+    void insertOrDecrease(int id, double key) {
+        if (contains(id)) {
+            decreaseKey(id, key);
+        } else {
+            insert(id, key);
+        }
+    }
+
+    /**
+     * Remove and return the id with the smallest priority
+     */
+    int pollMin() {
+        int min = heap[0];
+        positionOf[min] = ABSENT;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            positionOf[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    double minKey() {
+        return keyOf[heap[0]];
+    }
+
+    /**
+     * @param position index into the heap array, below {@link #size()}
+     * @return the id stored there; iterating the positions visits every queued id once
+     */
+    int idAt(int position) {
+        return heap[position];
+    }
+
+    /**
+     * Give every queued id a new priority and restore the heap order in linear time
+     */
+    void rekey(IntToDoubleFunction key) {
+        for (int i = 0; i < size; i++) {
+            keyOf[heap[i]] = key.applyAsDouble(heap[i]);
+        }
+        if (size > 0) {
+            for (int i = (size - 2) / ARITY; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+    }
+
+    /**
+     * Remove every id; capacity is kept for reuse
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positionOf[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id >= positionOf.length) {
+            int capacity = Math.max(id + 1, positionOf.length * 2);
+            int old = positionOf.length;
+            positionOf = Arrays.copyOf(positionOf, capacity);
+            Arrays.fill(positionOf, old, capacity, ABSENT);
+            keyOf = Arrays.copyOf(keyOf, capacity);
+        }
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        double key = keyOf[id];
+        while (position > 0) {
+            int parent = (position - 1) / ARITY;
+            int parentId = heap[parent];
+            if (keyOf[parentId] <= key) {
+                break;
+            }
+            heap[position] = parentId;
+            positionOf[parentId] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positionOf[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        double key = keyOf[id];
+        while (true) {
+            int firstChild = position * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int best = firstChild;
+            double bestKey = keyOf[heap[firstChild]];
+            int end = Math.min(firstChild + ARITY, size);
+            for (int child = firstChild + 1; child < end; child++) {
+                double childKey = keyOf[heap[child]];
+                if (childKey < bestKey) {
+                    best = child;
+                    bestKey = childKey;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int bestId = heap[best];
+            heap[position] = bestId;
+            positionOf[bestId] = position;
+            position = best;
+        }
+        heap[position] = id;
+        positionOf[id] = position;
+    }
+}
@@ -0,0 +1,160 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Obstacle-avoiding distances from a few landmarks to every cell of a grid around the no-fly
+ * zones, for the ALT (A*, landmarks, triangle inequality) lower bound: for any landmark L, the
+ * distance from a point to the goal is at least |d(L, point) - d(L, goal)|. The landmarks are
+ * the corners and side midpoints of the zones' bounding box, pushed out beyond it, where they
+ * separate the most routes around the zones.
+ * <p>
+ * The distances are exact any-angle distances over the zone visibility graph, taken at each
+ * cell centre and stored as floats. A cell is at most a move across, so from a point with no
+ * zone within a move (see {@link PreparedObstacles#isInOpenSpace}) the straight line to its
+ * cell centre is clear and the point's distance is the centre's to within that line's length.
+ * Built once per version of the zones; immutable afterwards.
+ */
+final class LandmarkDistances {
+
+    private static final double MOVE_LENGTH = 0.00015;
+    private static final int MAX_CELLS_PER_AXIS = 256;
+    // how far beyond the zones' bounding box the landmarks and the grid reach
+    private static final double PADDING = 20 * MOVE_LENGTH;
+    // float rounding of the stored distances, far below a lattice unit's worth of moves
+    private static final double FLOAT_SLACK = 1e-9;
+
+    private final PreparedObstacles obstacles;
+    private final double[] landmarkLng;
+    private final double[] landmarkLat;
+    private final VisibilityGraph.GoalDistances[] toLandmark;
+    private final double originLng;
+    private final double originLat;
+    private final int columns;
+    private final int rows;
+    // distance from landmark l to the centre of cell c at [l * cells + c]; NaN inside a zone or if unreachable
+    private final float[] distance;
+
+    private LandmarkDistances(PreparedObstacles obstacles, double[] landmarkLng, double[] landmarkLat,
+                              double originLng, double originLat, int columns, int rows) {
+        this.obstacles = obstacles;
+        this.landmarkLng = landmarkLng;
+        this.landmarkLat = landmarkLat;
+        this.originLng = originLng;
+        this.originLat = originLat;
+        this.columns = columns;
+        this.rows = rows;
+        this.toLandmark = new VisibilityGraph.GoalDistances[landmarkLng.length];
+        this.distance = new float[landmarkLng.length * columns * rows];
+    }
+
+    /**
+     * Compute the landmark distances for prepared zones
+     * @return the distances, or null if there are no zones, they span too large an area or no
+     * visibility graph is built for them
+     */
+    static LandmarkDistances build(PreparedObstacles obstacles) {
+        if (obstacles.isEmpty() || obstacles.vertexCount() == 0
+                || obstacles.vertexCount() > VisibilityGraph.MAX_VERTICES) {
+            return null;
+        }
+        double minLng = Double.POSITIVE_INFINITY;
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < obstacles.vertexCount(); v++) {
+            minLng = Math.min(minLng, obstacles.vertexLng(v));
+            minLat = Math.min(minLat, obstacles.vertexLat(v));
+            maxLng = Math.max(maxLng, obstacles.vertexLng(v));
+            maxLat = Math.max(maxLat, obstacles.vertexLat(v));
+        }
+        minLng -= PADDING;
+        minLat -= PADDING;
+        maxLng += PADDING;
+        maxLat += PADDING;
+        int columns = (int) Math.ceil((maxLng - minLng) / MOVE_LENGTH);
+        int rows = (int) Math.ceil((maxLat - minLat) / MOVE_LENGTH);
+        if (columns > MAX_CELLS_PER_AXIS || rows > MAX_CELLS_PER_AXIS) {
+            return null;
+        }
+
+        double midLng = (minLng + maxLng) / 2;
+        double midLat = (minLat + maxLat) / 2;
+        double[] landmarkLng = {minLng, midLng, maxLng, maxLng, maxLng, midLng, minLng, minLng};
+        double[] landmarkLat = {minLat, minLat, minLat, midLat, maxLat, maxLat, maxLat, midLat};
+        VisibilityGraph graph = obstacles.visibilityGraph();
+        if (graph == null) {
+            return null;
+        }
+        LandmarkDistances landmarks = new LandmarkDistances(obstacles, landmarkLng, landmarkLat,
+                minLng, minLat, columns, rows);
+        landmarks.fill(graph);
+        return landmarks;
+    }
+
+    private void fill(VisibilityGraph graph) {
+        int cells = columns * rows;
+        for (int l = 0; l < landmarkLng.length; l++) {
+            toLandmark[l] = graph.distancesTo(landmarkLng[l], landmarkLat[l]);
+            for (int row = 0; row < rows; row++) {
+                double centreLat = originLat + (row + 0.5) * MOVE_LENGTH;
+                for (int column = 0; column < columns; column++) {
+                    double centreLng = originLng + (column + 0.5) * MOVE_LENGTH;
+                    distance[l * cells + row * columns + column] = obstacles.isInAnyZone(centreLng, centreLat)
+                            ? Float.NaN
+                            : (float) toLandmark(l, centreLng, centreLat);
+                }
+            }
+        }
+    }
+
+    /**
+     * Exact obstacle-avoiding distance from a point outside the zones to a landmark
+     * @return the distance, or NaN if no route reaches the landmark
+     */
+    private double toLandmark(int l, double pointLng, double pointLat) {
+        double straight = Math.hypot(landmarkLng[l] - pointLng, landmarkLat[l] - pointLat);
+        if (obstacles.sees(pointLng, pointLat, landmarkLng[l], landmarkLat[l])) {
+            return straight;
+        }
+        double around = toLandmark[l].fromHidden(pointLng, pointLat);
+        return Double.isInfinite(around) ? Double.NaN : Math.max(straight, around);
+    }
+
+    /**
+     * @return each landmark's distance to the goal, NaN where unknown, for {@link #lowerBound}
+     */
+    double[] goalDistances(double goalLng, double goalLat) {
+        double[] goal = new double[landmarkLng.length];
+        for (int l = 0; l < goal.length; l++) {
+            goal[l] = toLandmark(l, goalLng, goalLat);
+        }
+        return goal;
+    }
+
+    /**
+     * Triangle-inequality lower bound on the obstacle-avoiding distance from a point to the goal
+     * @param goalDistances {@link #goalDistances} of the goal
+     * @return the bound in degrees; zero where the grid gives none (outside it or near a zone)
+     */
+    double lowerBound(double pointLng, double pointLat, double[] goalDistances) {
+        int column = (int) Math.floor((pointLng - originLng) / MOVE_LENGTH);
+        int row = (int) Math.floor((pointLat - originLat) / MOVE_LENGTH);
+        if (column < 0 || column >= columns || row < 0 || row >= rows
+                || !obstacles.isInOpenSpace(pointLng, pointLat)) {
+            return 0;
+        }
+        int cell = row * columns + column;
+        double offset = Math.hypot(pointLng - (originLng + (column + 0.5) * MOVE_LENGTH),
+                pointLat - (originLat + (row + 0.5) * MOVE_LENGTH)) + FLOAT_SLACK;
+        int cells = columns * rows;
+        double bound = 0;
+        for (int l = 0; l < landmarkLng.length; l++) {
+            double centre = distance[l * cells + cell];
+            double goal = goalDistances[l];
+            if (Double.isNaN(centre) || Double.isNaN(goal)) {
+                continue;
+            }
+            bound = Math.max(bound, Math.max(centre - offset - goal, goal - centre - offset));
+        }
+        return bound;
+    }
+}
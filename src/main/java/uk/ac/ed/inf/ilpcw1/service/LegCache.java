@@ -0,0 +1,165 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of computed flight legs, shared by concurrent requests.
+ * A leg is keyed on its start and goal rounded to the move lattice unit, the version of the
+ * prepared no-fly zones it was searched against and the search budget, and stored as the
+ * lattice offsets of its points from the start, so a hit is replayed from the caller's own
+ * start position. Legs with no path are cached too, as they are the most expensive searches of all.
+ * <p>
+ * The cache is split into segments by key hash, each an access-ordered map under its own lock
+ * that evicts least recently used legs once the moves it holds exceed its share of the budget.
+ */
+final class LegCache {
+
+    private static final int SEGMENTS = 16;
+
+    /**
+     * @param startX           start longitude in lattice units
+     * @param startY           start latitude in lattice units
+     * @param goalX            goal longitude in lattice units
+     * @param goalY            goal latitude in lattice units
+     * @param obstaclesVersion {@link PreparedObstacles#version()} the leg was searched against
+     * @param budget           budget the leg was searched with
+     */
+    record Key(long startX, long startY, long goalX, long goalY, long obstaclesVersion, SearchBudget budget) {
+
+        static Key of(double startLng, double startLat, double goalLng, double goalLat,
+                      long obstaclesVersion, SearchBudget budget) {
+            return new Key(toUnits(startLng), toUnits(startLat), toUnits(goalLng), toUnits(goalLat),
+                    obstaclesVersion, budget);
+        }
+
+        private static long toUnits(double degrees) {
+            return Math.round(degrees / MoveLattice.UNIT);
+        }
+    }
+
+    /**
+     * A searched leg
+     *
+     * @param offsets            lattice offsets (x, y interleaved) of its points from the start,
+     *                           or null if it has no path; never modified
+     * @param suboptimalityBound see {@link PathResult#suboptimalityBound()}
+     * @param complete           see {@link PathResult#complete()}
+     */
+    record Leg(long[] offsets, double suboptimalityBound, boolean complete) {
+
+        boolean hasPath() {
+            return offsets != null;
+        }
+
+        /**
+         * @return moves held by the leg, plus one so that legs with no path still count
+         */
+        long weight() {
+            return offsets == null ? 1 : offsets.length / 2 + 1;
+        }
+    }
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxMoves total moves the cached legs may hold; zero disables the cache
+     */
+    LegCache(long maxMoves) {
+        this(maxMoves, SEGMENTS);
+    }
+
+    /**
+     * @param segments number of independently locked segments, a power of two
+     */
+    LegCache(long maxMoves, int segments) {
+        this.segments = new Segment[segments];
+        long perSegment = maxMoves / segments;
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * @return the cached leg, or null on a miss
+     */
+    Leg get(Key key) {
+        Leg leg = segmentFor(key).get(key);
+        if (leg == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return leg;
+    }
+
+    void put(Key key, Leg leg) {
+        segmentFor(key).put(key, leg);
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of cached legs
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private final class Segment {
+
+        private final long maxMoves;
+        private final LinkedHashMap<Key, Leg> legs = new LinkedHashMap<>(16, 0.75f, true);
+        private long moves;
+
+        Segment(long maxMoves) {
+            this.maxMoves = maxMoves;
+        }
+
+        synchronized Leg get(Key key) {
+            return legs.get(key);
+        }
+
+        synchronized void put(Key key, Leg leg) {
+            long weight = leg.weight();
+            if (weight > maxMoves) {
+                return;
+            }
+            Leg replaced = legs.put(key, leg);
+            moves += weight - (replaced == null ? 0 : replaced.weight());
+            Iterator<Leg> eldest = legs.values().iterator();
+            while (moves > maxMoves) {
+                moves -= eldest.next().weight();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized int size() {
+            return legs.size();
+        }
+    }
+}
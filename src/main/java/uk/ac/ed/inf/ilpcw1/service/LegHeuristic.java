@@ -0,0 +1,114 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Heuristic for one leg of the lattice search: an estimate, in moves, of the moves still
+ * needed from a lattice point to the goal. Straight-line distance in general; on legs whose
+ * straight line is blocked by a no-fly zone, the obstacle-avoiding distance over the zone
+ * visibility graph wherever the point cannot see the goal directly. Optionally raised to the
+ * ALT bound of the zones' {@link LandmarkDistances}, which also covers points hidden from the
+ * goal on legs whose straight line is clear.
+ * <p>
+ * The search stops anywhere within the close distance of the goal, one move, so every estimate
+ * is at most one move more than the moves to get that close, which the searches' bounds allow
+ * for. The detour is therefore taken to the nearest point that close rather than to the goal,
+ * and the ALT bound, which is to the goal itself, is only used with no zone within a move of it.
+ */
+final class LegHeuristic {
+
+    private static final double MOVE_DISTANCE = 0.00015;
+    private static final double CLOSE_DISTANCE = 0.00015;
+
+    private final double startLng;
+    private final double startLat;
+    private final double goalLng;
+    private final double goalLat;
+    private final PreparedObstacles obstacles;
+    private final VisibilityGraph.GoalDistances detour;
+    private final LandmarkDistances landmarks;
+    private final double[] landmarkGoal;
+
+    private LegHeuristic(double startLng, double startLat, double goalLng, double goalLat,
+                         PreparedObstacles obstacles, VisibilityGraph.GoalDistances detour,
+                         LandmarkDistances landmarks) {
+        this.startLng = startLng;
+        this.startLat = startLat;
+        this.goalLng = goalLng;
+        this.goalLat = goalLat;
+        this.obstacles = obstacles;
+        this.detour = detour;
+        this.landmarks = landmarks;
+        this.landmarkGoal = landmarks == null ? null : landmarks.goalDistances(goalLng, goalLat);
+    }
+
+    /**
+     * @param useVisibility whether blocked legs may use the visibility graph; until it has been
+     *                      built in the background they get the straight-line distance
+     * @param useLandmarks  whether the ALT bound may be used
+     */
+    static LegHeuristic forLeg(double startLng, double startLat, double goalLng, double goalLat,
+                               PreparedObstacles obstacles, boolean useVisibility, boolean useLandmarks) {
+        VisibilityGraph.GoalDistances detour = null;
+        LandmarkDistances landmarks = null;
+        if (!obstacles.isEmpty()) {
+            VisibilityGraph graph = useVisibility ? obstacles.builtVisibilityGraph() : null;
+            if (graph != null && !obstacles.sees(startLng, startLat, goalLng, goalLat)) {
+                detour = graph.distancesWithin(goalLng, goalLat, CLOSE_DISTANCE);
+            }
+            // past a zone that near the goal, the goal itself may be far further than the points by it
+            if (useLandmarks && obstacles.isInOpenSpace(goalLng, goalLat)) {
+                landmarks = obstacles.landmarkDistances();
+            }
+        }
+        return new LegHeuristic(startLng, startLat, goalLng, goalLat, obstacles, detour, landmarks);
+    }
+
+    /**
+     * @return true if the straight line is blocked and obstacle-avoiding distances are in use
+     */
+    boolean isDetour() {
+        return detour != null;
+    }
+
+    /**
+     * Corridor around the any-angle route from the start, on detour legs only
+     * @param halfWidthMoves half-width of the corridor in moves
+     * @return the corridor, or null if the leg is not a detour or no route was found
+     */
+    RouteCorridor corridor(double halfWidthMoves) {
+        if (detour == null) {
+            return null;
+        }
+        double[][] route = detour.routeFrom(startLng, startLat);
+        return route == null ? null : new RouteCorridor(route[0], route[1], halfWidthMoves * MOVE_DISTANCE);
+    }
+
+    /**
+     * Straight-line distance in degrees from a lattice point to the goal
+     */
+    double distanceToGoal(long x, long y) {
+        double lngDiff = startLng + MoveLattice.toDegrees(x) - goalLng;
+        double latDiff = startLat + MoveLattice.toDegrees(y) - goalLat;
+        return Math.sqrt(lngDiff * lngDiff + latDiff * latDiff);
+    }
+
+    /**
+     * Estimated moves from a lattice point to the goal
+     */
+    double moves(long x, long y) {
+        double straight = distanceToGoal(x, y);
+        if (detour == null && landmarks == null) {
+            return straight / MOVE_DISTANCE;
+        }
+        double pointLng = startLng + MoveLattice.toDegrees(x);
+        double pointLat = startLat + MoveLattice.toDegrees(y);
+        double estimate = straight;
+        if (landmarks != null) {
+            estimate = Math.max(estimate, landmarks.lowerBound(pointLng, pointLat, landmarkGoal));
+        }
+        if (detour == null || !obstacles.hidesDisc(pointLng, pointLat, goalLng, goalLat, CLOSE_DISTANCE)) {
+            return estimate / MOVE_DISTANCE;
+        }
+        double around = detour.fromHidden(pointLng, pointLat) + CLOSE_DISTANCE;
+        return (Double.isInfinite(around) ? estimate : Math.max(estimate, around)) / MOVE_DISTANCE;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to int values with linear probing.
+ * No boxing and no entry objects: keys and values live in parallel arrays.
+ * A slot is occupied only if its stamp equals the current generation, so {@link #clear()}
+ * just starts a new generation instead of wiping the arrays, which lets a map sized by one
+ * search be reused by the next at no cost.
+ */
+final class LongIntHashMap {
+
+    private static final double MAX_LOAD = 0.5;
+
+    private long[] keys;
+    private int[] values;
+    private int[] stamps;
+    private int generation = 1;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value for the key, or {@code missing} if absent
+     */
+    int get(long key, int missing) {
+        int slot = slot(key);
+        while (true) {
+            if (stamps[slot] != generation) {
+                return missing;
+            }
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    void put(long key, int value) {
+        int slot = slot(key);
+        while (true) {
+            if (stamps[slot] != generation) {
+                keys[slot] = key;
+                values[slot] = value;
+                stamps[slot] = generation;
+                if (++size >= resizeAt) {
+                    rehash();
+                }
+                return;
+            }
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove every entry in constant time; capacity is kept for reuse
+     */
+    void clear() {
+        if (size > 0) {
+            size = 0;
+            if (++generation == 0) {
+                // stamps from 2^32 generations ago would look current again
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        // murmur3 finaliser spreads neighbouring lattice keys over the table
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        allocate(keys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == generation) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Integer lattice the path search runs on.
+ * Positions are whole numbers of {@link #UNIT} degrees relative to the start of the leg and
+ * every move is one of 16 precomputed integer vectors of length 0.00015 degrees (direction d
+ * points at compass angle d * 22.5, 0 being east), so a position reached by different move
+ * orders is exactly the same lattice point. The table is built from three rounded values by
+ * quarter-turn rotation, which keeps it exactly symmetric: opposite moves cancel and mirrored
+ * moves are mirrored.
+ */
+final class MoveLattice {
+
+    /**
+     * Degrees per lattice unit; rounding a move to it costs well under a millimetre per move
+     */
+    static final double UNIT = 1e-12;
+
+    static final int DIRECTIONS = 16;
+
+    /**
+     * Lattice units per 1e-5 degrees, the resolution at which nearby points are treated as one
+     * search state (the rounding CoordinateKey applies to coordinates)
+     */
+    static final long CELL = 10_000_000L;
+
+    private static final double MOVE_LENGTH = 0.00015;
+
+    private static final long[] DX = new long[DIRECTIONS];
+    private static final long[] DY = new long[DIRECTIONS];
+
+    static {
+        long length = Math.round(MOVE_LENGTH / UNIT);
+        long cos22 = Math.round(MOVE_LENGTH * Math.cos(Math.toRadians(22.5)) / UNIT);
+        long sin22 = Math.round(MOVE_LENGTH * Math.sin(Math.toRadians(22.5)) / UNIT);
+        long cos45 = Math.round(MOVE_LENGTH * Math.cos(Math.toRadians(45)) / UNIT);
+
+        // first quadrant, then rotate a quarter turn at a time: (x, y) -> (-y, x)
+        long[] firstX = {length, cos22, cos45, sin22};
+        long[] firstY = {0, sin22, cos45, cos22};
+        for (int d = 0; d < DIRECTIONS; d++) {
+            long x = firstX[d % 4];
+            long y = firstY[d % 4];
+            for (int turn = 0; turn < d / 4; turn++) {
+                long rotated = -y;
+                y = x;
+                x = rotated;
+            }
+            DX[d] = x;
+            DY[d] = y;
+        }
+    }
+
+    private MoveLattice() {
+    }
+
+    static long dx(int direction) {
+        return DX[direction];
+    }
+
+    static long dy(int direction) {
+        return DY[direction];
+    }
+
+    /**
+     * Whether a move in the given direction may follow a move in the heading direction in open
+     * space. Paths that only mix two neighbouring directions can be ordered so that consecutive
+     * moves differ by at most one direction, so the rest are symmetric copies and can be pruned
+     * @param heading direction of the previous move, or negative at the root
+     */
+    static boolean isNaturalSuccessor(int heading, int direction) {
+        if (heading < 0) {
+            return true;
+        }
+        int turn = Math.floorMod(direction - heading, DIRECTIONS);
+        return turn <= 1 || turn == DIRECTIONS - 1;
+    }
+
+    /**
+     * Offset in degrees of a lattice coordinate
+     */
+    static double toDegrees(long units) {
+        return units * UNIT;
+    }
+
+    /**
+     * Key of the 1e-5 degree cell containing the lattice point, packed into one long
+     */
+    static long cellKey(long x, long y) {
+        long cellX = Math.floorDiv(x + CELL / 2, CELL);
+        long cellY = Math.floorDiv(y + CELL / 2, CELL);
+        return (cellX << 32) | (cellY & 0xffffffffL);
+    }
+}
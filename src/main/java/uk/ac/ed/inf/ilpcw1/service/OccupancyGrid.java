@@ -0,0 +1,279 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Bitmap of the flight area around the no-fly zones at half a move per cell.
+ * Each cell is boundary (a zone edge, or the on-edge tolerance around it, may pass through it),
+ * blocked (entirely inside a zone) or free. A further bitset marks the free cells whose whole
+ * one-move neighbourhood is free, so a move starting there is legal after a single bit test.
+ * Moves that start near a boundary are left to the exact geometry.
+ */
+final class OccupancyGrid {
+
+    static final int FREE = 0;
+    static final int BLOCKED = 1;
+    static final int UNKNOWN = 2;
+
+    /**
+     * Tests whether a point lies inside (or on the edge of) any zone
+     */
+    @FunctionalInterface
+    interface PointTest {
+        boolean test(double lng, double lat);
+    }
+
+    private static final double MOVE_LENGTH = 0.00015;
+    private static final double CELL_SIZE = MOVE_LENGTH / 2;
+    private static final int MAX_CELLS_PER_AXIS = 2048;
+    private static final double ON_EDGE_TOLERANCE = 1e-10;
+    // absorbs rounding in the rasterisation; far below any cell size used
+    private static final double SLACK = 1e-9;
+
+    private final double originLng;
+    private final double originLat;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int reach;
+    private final double maxMove;
+    private final long[] boundary;
+    private final long[] blocked;
+    private final long[] clear;
+
+    private OccupancyGrid(double minLng, double minLat, double maxLng, double maxLat) {
+        double extent = Math.max(maxLng - minLng, maxLat - minLat);
+        cellSize = Math.max(CELL_SIZE, extent / MAX_CELLS_PER_AXIS);
+        // a move ends at most this many cells away; the grid is padded by one more
+        reach = (int) Math.ceil(MOVE_LENGTH / cellSize) + 1;
+        maxMove = MOVE_LENGTH + SLACK;
+        int padding = reach + 1;
+        originLng = minLng - padding * cellSize;
+        originLat = minLat - padding * cellSize;
+        columns = (int) ((maxLng - minLng) / cellSize) + 1 + 2 * padding;
+        rows = (int) ((maxLat - minLat) / cellSize) + 1 + 2 * padding;
+        int words = (columns * rows + 63) >>> 6;
+        boundary = new long[words];
+        blocked = new long[words];
+        clear = new long[words];
+    }
+
+    /**
+     * Rasterise the zones covering the given bounds
+     * @param lng   vertex longitudes
+     * @param lat   vertex latitudes
+     * @param next  for each vertex, the vertex its edge runs to
+     * @param inside exact point-in-zone test, used once per run of non-boundary cells
+     * @return the grid
+     */
+    static OccupancyGrid build(double minLng, double minLat, double maxLng, double maxLat,
+                               double[] lng, double[] lat, int[] next, PointTest inside) {
+        OccupancyGrid grid = new OccupancyGrid(minLng, minLat, maxLng, maxLat);
+        for (int v = 0; v < lng.length; v++) {
+            grid.markEdge(lng[v], lat[v], lng[next[v]], lat[next[v]]);
+        }
+        grid.fillRows(inside);
+        grid.markClear(grid.reach);
+        return grid;
+    }
+
+    /**
+     * Classify a straight move without touching the zone geometry
+     * @return {@link #FREE} or {@link #BLOCKED} when the bitmap decides the move, otherwise {@link #UNKNOWN}
+     */
+    int classifyMove(double fromLng, double fromLat, double toLng, double toLat) {
+        boolean shortMove = Math.abs(toLng - fromLng) <= maxMove && Math.abs(toLat - fromLat) <= maxMove;
+        int column = (int) Math.floor((fromLng - originLng) / cellSize);
+        int row = (int) Math.floor((fromLat - originLat) / cellSize);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            // the padding guarantees a short move from outside the grid reaches no zone
+            return shortMove ? FREE : UNKNOWN;
+        }
+        int cell = row * columns + column;
+        if (get(blocked, cell)) {
+            return BLOCKED;
+        }
+        return shortMove && get(clear, cell) ? FREE : UNKNOWN;
+    }
+
+    /**
+     * Whether every move from the point is legal: it lies in a clear cell, or outside the grid
+     */
+    boolean isClear(double pointLng, double pointLat) {
+        int column = (int) Math.floor((pointLng - originLng) / cellSize);
+        int row = (int) Math.floor((pointLat - originLat) / cellSize);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return true;
+        }
+        return get(clear, row * columns + column);
+    }
+
+    int columns() {
+        return columns;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * @return the column a longitude falls in; outside [0, {@link #columns()}) beyond the grid
+     */
+    int columnOf(double x) {
+        return (int) Math.floor((x - originLng) / cellSize);
+    }
+
+    /**
+     * @return the row a latitude falls in; outside [0, {@link #rows()}) beyond the grid
+     */
+    int rowOf(double y) {
+        return (int) Math.floor((y - originLat) / cellSize);
+    }
+
+    /**
+     * Whether the cell lies entirely inside a zone
+     */
+    boolean isBlocked(int column, int row) {
+        return get(blocked, row * columns + column);
+    }
+
+    /**
+     * Whether a zone edge, or the on-edge tolerance around it, may pass through the cell
+     */
+    boolean isBoundary(int column, int row) {
+        return get(boundary, row * columns + column);
+    }
+
+    double cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the longitude of the column's western side
+     */
+    double westOf(int column) {
+        return originLng + column * cellSize;
+    }
+
+    /**
+     * @return the latitude of the row's southern side
+     */
+    double southOf(int row) {
+        return originLat + row * cellSize;
+    }
+
+    /**
+     * Mark every cell within the edge's tolerance band as boundary
+     */
+    private void markEdge(double ax, double ay, double bx, double by) {
+        if (Double.isNaN(ax) || Double.isNaN(ay) || Double.isNaN(bx) || Double.isNaN(by)) {
+            return;
+        }
+        double length = Math.hypot(bx - ax, by - ay);
+        // RestService treats points within the edge's box with |cross product| < 1e-10 as on it
+        double margin = (length == 0 ? 0 : Math.min(length, ON_EDGE_TOLERANCE / length)) + SLACK;
+
+        double minX = Math.min(ax, bx);
+        double maxX = Math.max(ax, bx);
+        int firstColumn = Math.max(0, columnOf(minX - margin));
+        int lastColumn = Math.min(columns - 1, columnOf(maxX + margin));
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            // part of the edge within this column strip, widened by the margin
+            double fromX = Math.max(minX, originLng + column * cellSize - margin);
+            double toX = Math.min(maxX, originLng + (column + 1) * cellSize + margin);
+            double lowY;
+            double highY;
+            if (maxX == minX) {
+                lowY = Math.min(ay, by);
+                highY = Math.max(ay, by);
+            } else {
+                double y1 = ay + (by - ay) * (fromX - ax) / (bx - ax);
+                double y2 = ay + (by - ay) * (toX - ax) / (bx - ax);
+                lowY = Math.min(y1, y2);
+                highY = Math.max(y1, y2);
+            }
+            int firstRow = Math.max(0, rowOf(lowY - margin));
+            int lastRow = Math.min(rows - 1, rowOf(highY + margin));
+            for (int row = firstRow; row <= lastRow; row++) {
+                set(boundary, row * columns + column);
+            }
+        }
+    }
+
+    /**
+     * Cells between two boundary cells of a row are all inside or all outside, so one
+     * point test per run decides the whole run
+     */
+    private void fillRows(PointTest inside) {
+        for (int row = 0; row < rows; row++) {
+            double centreLat = originLat + (row + 0.5) * cellSize;
+            boolean known = false;
+            boolean isInside = false;
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                if (get(boundary, cell)) {
+                    known = false;
+                    continue;
+                }
+                if (!known) {
+                    isInside = inside.test(originLng + (column + 0.5) * cellSize, centreLat);
+                    known = true;
+                }
+                if (isInside) {
+                    set(blocked, cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clear cells are free cells with no boundary or blocked cell within {@code radius} cells,
+     * computed as a horizontal then a vertical sliding window
+     */
+    private void markClear(int radius) {
+        long[] nearHorizontally = new long[clear.length];
+        for (int row = 0; row < rows; row++) {
+            int base = row * columns;
+            int occupied = 0;
+            for (int column = 0; column < Math.min(radius, columns); column++) {
+                occupied += isOccupied(base + column) ? 1 : 0;
+            }
+            for (int column = 0; column < columns; column++) {
+                int entering = column + radius;
+                int leaving = column - radius - 1;
+                if (entering < columns && isOccupied(base + entering)) occupied++;
+                if (leaving >= 0 && isOccupied(base + leaving)) occupied--;
+                if (occupied > 0) {
+                    set(nearHorizontally, base + column);
+                }
+            }
+        }
+        int[] occupied = new int[columns];
+        for (int row = 0; row < Math.min(radius, rows); row++) {
+            for (int column = 0; column < columns; column++) {
+                occupied[column] += get(nearHorizontally, row * columns + column) ? 1 : 0;
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            int entering = row + radius;
+            int leaving = row - radius - 1;
+            for (int column = 0; column < columns; column++) {
+                if (entering < rows && get(nearHorizontally, entering * columns + column)) occupied[column]++;
+                if (leaving >= 0 && get(nearHorizontally, leaving * columns + column)) occupied[column]--;
+                if (occupied[column] == 0) {
+                    set(clear, row * columns + column);
+                }
+            }
+        }
+    }
+
+    private boolean isOccupied(int cell) {
+        return get(boundary, cell) || get(blocked, cell);
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+}
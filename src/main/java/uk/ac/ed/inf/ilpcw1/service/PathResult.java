@@ -0,0 +1,22 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+
+import java.util.List;
+
+/**
+ * Outcome of a budgeted path search
+ *
+ * @param path               the best path found, start first, or null if none was found
+ * @param suboptimalityBound the path is at most this many times longer than the shortest one
+ *                           the search could find (1 when proven shortest); infinite without a path
+ * @param expansions         nodes expanded, 0 when the leg was served from the cache
+ * @param complete           false if the budget ran out before the search finished improving
+ *                           the path (or before it found one)
+ */
+public record PathResult(List<LngLat> path, double suboptimalityBound, int expansions, boolean complete) {
+
+    public boolean hasPath() {
+        return path != null;
+    }
+}
@@ -1,171 +1,290 @@
 package uk.ac.ed.inf.ilpcw1.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import uk.ac.ed.inf.ilpcw1.data.CoordinateKey;
+import uk.ac.ed.inf.ilpcw1.config.PathfindingProperties;
 import uk.ac.ed.inf.ilpcw1.data.LngLat;
-import uk.ac.ed.inf.ilpcw1.data.Region;
 import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
-public class PathfindingService {
+public class PathfindingService implements MeterBinder {
     private static final Logger logger = LoggerFactory.getLogger(PathfindingService.class);
     private static final double MOVE_DISTANCE = 0.00015;
-
-    // Use 1.0 for strictly shortest path.
-    // Use 1.0001 to break ties (prefer paths closer to goal) without noticeably affecting cost.
-    private static final double HEURISTIC_WEIGHT = 1.0001;
-
-    private static final double[] COMPASS_DIRECTIONS = {
-            0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5,
-            180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5
-    };
-
+    private static final double CLOSE_DISTANCE = 0.00015;
     private final RestService restService;
+    private final PathfindingProperties properties;
+    private final AtomicReference<PreparedObstacles> obstacles = new AtomicReference<>();
+    private final LegCache legCache;
+    private final SearchWorkspace.Pool workspaces;
+    private final SearchBudget defaultBudget;
+    private final ExecutorService backgroundExecutor;
 
-    @Autowired
     public PathfindingService(RestService restService) {
+        this(restService, new PathfindingProperties());
+    }
+
+    @Autowired
+    public PathfindingService(RestService restService, PathfindingProperties properties) {
         this.restService = restService;
+        this.properties = properties;
+        this.legCache = new LegCache(properties.getLegCacheMaxMoves());
+        this.workspaces = new SearchWorkspace.Pool(properties.getWorkspacePoolSize());
+        this.defaultBudget = new SearchBudget(properties.getMaxExpansions(), properties.getSearchTimeLimit(),
+                properties.getInitialWeight());
+        this.backgroundExecutor = Executors.newFixedThreadPool(Math.max(1, properties.getBackgroundThreads()),
+                Thread.ofPlatform().name("pathfinding-background-", 0).daemon().factory());
+    }
+
+    /**
+     * @return the budget {@link #findPath} searches with, as configured
+     */
+    public SearchBudget defaultBudget() {
+        return defaultBudget;
     }
 
     public List<LngLat> findPath(LngLat start, LngLat goal, List<RestrictedArea> restrictedAreas) {
+        return searchPath(start, goal, restrictedAreas, defaultBudget).path();
+    }
+
+    /**
+     * Find a path within a search budget
+     * @param budget limits on this search
+     * @return the best path found within the budget and how close to the shortest it is
+     */
+    public PathResult searchPath(LngLat start, LngLat goal, List<RestrictedArea> restrictedAreas, SearchBudget budget) {
         logger.info("Finding path from {} to {}", start, goal);
 
         if (restService.isCloseTo(start, goal)) {
             logger.info("Start is already close to goal");
-            return new ArrayList<>(List.of(start));
+            return new PathResult(new ArrayList<>(List.of(start)), 1, 0, true);
         }
 
-        PriorityQueue<Node> priorityQueue = new PriorityQueue<>(Comparator.comparingDouble(n -> n.f));
-        Map<CoordinateKey, Node> allNodes = new HashMap<>();
-
-        List<Region> noFlyZones = restrictedAreas.stream()
-                .map(this::convertToRegion)
-                .toList();
-
-        double startHeuristic = heuristic(start, goal);
-        Node startNode = new Node(start, null, 0, startHeuristic);
-
-        CoordinateKey startKey = CoordinateKey.fromLngLat(start);
-        priorityQueue.add(startNode);
-        allNodes.put(startKey, startNode);
-
-        int iterations = 0;
-        final int MAX_ITERATIONS = 100000;
-
-        while (!priorityQueue.isEmpty()) {
-            iterations++;
-            if (iterations > MAX_ITERATIONS) {
-                logger.warn("No path found after {} iterations (Max Reached)", iterations);
-                return null;
+        PreparedObstacles noFlyZones = prepared(restrictedAreas);
+        if (noFlyZones.separates(start.getLongitude(), start.getLatitude(),
+                goal.getLongitude(), goal.getLatitude(), CLOSE_DISTANCE)) {
+            logger.info("Goal is cut off from the start by no-fly zones");
+            return new PathResult(null, Double.POSITIVE_INFINITY, 0, true);
+        }
+        if (properties.isDirectLegs()) {
+            long[] direct = DirectLeg.find(start.getLongitude(), start.getLatitude(),
+                    goal.getLongitude(), goal.getLatitude(), noFlyZones);
+            if (direct != null) {
+                logger.info("Leg is clear of no-fly zones; flown along the straight line");
+                return new PathResult(toPath(direct, start.getLongitude(), start.getLatitude()), 1, 0, true);
             }
-
-            Node current = priorityQueue.poll();
-
-            CoordinateKey currentKey = CoordinateKey.fromLngLat(current.position);
-            Node bestKnown = allNodes.get(currentKey);
-            if (bestKnown != null && bestKnown.g < current.g) {
-                continue;
+        }
+        LegCache.Key key = LegCache.Key.of(start.getLongitude(), start.getLatitude(),
+                goal.getLongitude(), goal.getLatitude(), noFlyZones.version(), budget);
+        LegCache.Leg leg = legCache.get(key);
+        int expansions = 0;
+        if (leg == null) {
+            SearchOutcome outcome = searchLeg(start, goal, noFlyZones, budget);
+            leg = new LegCache.Leg(outcome.offsets(), outcome.suboptimalityBound(), outcome.complete());
+            expansions = outcome.expansions();
+            // a search cut short by the clock depends on the machine's load, so is not reused
+            if (!outcome.timedOut()) {
+                legCache.put(key, leg);
             }
+        } else {
+            logger.info("Leg found in cache");
+        }
+        List<LngLat> path = leg.hasPath() ? toPath(leg.offsets(), start.getLongitude(), start.getLatitude()) : null;
+        return new PathResult(path, leg.suboptimalityBound(), expansions, leg.complete());
+    }
 
-            if (restService.isCloseTo(current.position, goal)) {
-                logger.info("Path found in {} iterations with {} moves", iterations, current.g);
-                return reconstructPath(current);
+    /**
+     * Start building, in the background, the reachability field of each service point for the
+     * current restricted areas; points whose field is built or being built are skipped
+     * @param radiusMoves how far from its service point, in moves, a field's grid reaches
+     */
+    public void prepareReachability(Collection<LngLat> servicePoints, List<RestrictedArea> restrictedAreas,
+                                    int radiusMoves) {
+        if (!properties.isReachabilityFields()) {
+            return;
+        }
+        PreparedObstacles noFlyZones = prepared(restrictedAreas);
+        try {
+            for (LngLat servicePoint : servicePoints) {
+                noFlyZones.buildReachabilityField(new LngLat(servicePoint.getLongitude(), servicePoint.getLatitude()),
+                        radiusMoves, backgroundExecutor);
             }
+        } catch (RejectedExecutionException e) {
+            // executor shut down
+            logger.debug("Skipping reachability fields during shutdown");
+        }
+    }
+
+    /**
+     * Lower bound on the length of a flight between a service point and any point within the
+     * close distance of a place, either way, that avoids the restricted areas; a leg ending by
+     * the service point may be another close distance shorter. Read from the service point's
+     * reachability field once {@link #prepareReachability} has built it, from the straight
+     * distance until then
+     * @return the bound in degrees, infinite if no flight avoids the areas
+     */
+    public double flightDistanceAtLeast(LngLat servicePoint, LngLat place, List<RestrictedArea> restrictedAreas) {
+        ReachabilityField field = properties.isReachabilityFields()
+                ? prepared(restrictedAreas).builtReachabilityField(servicePoint)
+                : null;
+        return field != null
+                ? field.distanceAtLeast(place.getLongitude(), place.getLatitude())
+                : Math.max(0, Math.hypot(place.getLongitude() - servicePoint.getLongitude(),
+                place.getLatitude() - servicePoint.getLatitude()) - CLOSE_DISTANCE);
+    }
 
-            for (double angle : COMPASS_DIRECTIONS) {
-                LngLat nextPos = restService.nextPosition(current.position, angle);
-                CoordinateKey nextKey = CoordinateKey.fromLngLat(nextPos);
+    @PreDestroy
+    void shutdown() {
+        backgroundExecutor.shutdownNow();
+    }
 
-                if (intersectsRestrictedArea(current.position, nextPos, noFlyZones)) {
-                    continue;
-                }
+    private SearchOutcome searchLeg(LngLat start, LngLat goal, PreparedObstacles noFlyZones, SearchBudget budget) {
+        long deadline = budget.hasTimeLimit() ? System.nanoTime() + budget.timeLimit().toNanos() : Long.MAX_VALUE;
+        LegHeuristic heuristic = LegHeuristic.forLeg(start.getLongitude(), start.getLatitude(),
+                goal.getLongitude(), goal.getLatitude(), noFlyZones, properties.isVisibilityHeuristic(),
+                properties.isLandmarkHeuristic());
+        LegHeuristic backwardHeuristic = isBidirectional(start, goal, noFlyZones, budget)
+                ? LegHeuristic.forLeg(goal.getLongitude(), goal.getLatitude(),
+                start.getLongitude(), start.getLatitude(), noFlyZones, properties.isVisibilityHeuristic(),
+                properties.isLandmarkHeuristic())
+                : null;
 
-                double tentativeG = current.g + 1;
-                Node nextNode = allNodes.get(nextKey);
-
-                if (nextNode == null || tentativeG < nextNode.g) {
-                    double h = heuristic(nextPos, goal);
-                    double f = tentativeG + (h * HEURISTIC_WEIGHT);
-
-                    if (nextNode == null) {
-                        nextNode = new Node(nextPos, current, tentativeG, h);
-                        nextNode.f = f;
-                        allNodes.put(nextKey, nextNode);
-                        priorityQueue.add(nextNode);
-                    } else {
-                        nextNode.parent = current;
-                        nextNode.g = tentativeG;
-                        nextNode.f = f;
-                        priorityQueue.add(nextNode);
-                    }
+        RouteCorridor corridor = properties.getCorridorWidth() > 0 ? heuristic.corridor(properties.getCorridorWidth()) : null;
+        SearchWorkspace workspace = workspaces.acquire();
+        SearchWorkspace backwardWorkspace = backwardHeuristic != null ? workspaces.acquire() : null;
+        try {
+            if (corridor != null) {
+                SearchOutcome inCorridor = search(workspace, backwardWorkspace, start, goal, heuristic, backwardHeuristic,
+                        noFlyZones, corridor, budget, budget.maxExpansions(), deadline);
+                int remaining = budget.maxExpansions() - inCorridor.expansions();
+                if (inCorridor.hasPath() || inCorridor.timedOut() || remaining <= 0) {
+                    return inCorridor;
                 }
+                logger.info("No path within the corridor around the any-angle route, searching without it");
+                workspace.reset();
+                if (backwardWorkspace != null) {
+                    backwardWorkspace.reset();
+                }
+                return search(workspace, backwardWorkspace, start, goal, heuristic, backwardHeuristic,
+                        noFlyZones, null, budget, remaining, deadline).afterEarlier(inCorridor.expansions());
+            }
+            return search(workspace, backwardWorkspace, start, goal, heuristic, backwardHeuristic,
+                    noFlyZones, null, budget, budget.maxExpansions(), deadline);
+        } finally {
+            workspaces.release(workspace);
+            if (backwardWorkspace != null) {
+                workspaces.release(backwardWorkspace);
             }
         }
-
-        logger.warn("No path found - Priority Queue exhausted after {} iterations", iterations);
-        return null;
     }
 
-    private double heuristic(LngLat from, LngLat to) {
-        return restService.calculateDistance(from, to) / MOVE_DISTANCE;
-    }
-
-    private List<LngLat> reconstructPath(Node goalNode) {
-        List<LngLat> path = new ArrayList<>();
-        Node current = goalNode;
-        while (current != null) {
-            path.add(current.position);
-            current = current.parent;
+    /**
+     * Run one search of the leg: bidirectional if a backward workspace is given, otherwise anytime A*
+     */
+    private SearchOutcome search(SearchWorkspace workspace, SearchWorkspace backwardWorkspace, LngLat start, LngLat goal,
+                                 LegHeuristic heuristic, LegHeuristic backwardHeuristic, PreparedObstacles noFlyZones,
+                                 RouteCorridor corridor, SearchBudget budget, int maxExpansions, long deadline) {
+        if (backwardWorkspace != null) {
+            return new BidirectionalSearch(workspace, backwardWorkspace,
+                    start.getLongitude(), start.getLatitude(), goal.getLongitude(), goal.getLatitude(),
+                    heuristic, backwardHeuristic, noFlyZones, corridor, properties.isSymmetryPruning(),
+                    maxExpansions, deadline).run();
         }
-        Collections.reverse(path);
-        return path;
+        return new AnytimeSearch(workspace, start.getLongitude(), start.getLatitude(),
+                heuristic, noFlyZones, corridor, properties.isSymmetryPruning(), budget.initialWeight(),
+                maxExpansions, deadline).run();
     }
 
-    private boolean intersectsRestrictedArea(LngLat pos1, LngLat pos2, List<Region> noFlyZones) {
-        for (Region region : noFlyZones) {
-            if (restService.isInRegion(pos1, region) || restService.isInRegion(pos2, region)) {
-                return true;
-            }
-            List<LngLat> vertices = region.getVertices();
-            for (int i = 0; i < vertices.size() - 1; i++) {
-                if (lineSegmentsIntersect(pos1, pos2, vertices.get(i), vertices.get(i + 1))) {
-                    return true;
-                }
-            }
-            if (!vertices.isEmpty() && lineSegmentsIntersect(pos1, pos2, vertices.get(vertices.size() - 1), vertices.get(0))) {
-                return true;
-            }
+    /**
+     * Long legs are searched from both ends when enabled, unless the search is anytime or an end
+     * lies in a no-fly zone (a goal in a zone is only approached, never reached)
+     */
+    private boolean isBidirectional(LngLat start, LngLat goal, PreparedObstacles noFlyZones, SearchBudget budget) {
+        if (!properties.isBidirectional() || budget.initialWeight() > 1) {
+            return false;
         }
-        return false;
+        double distance = Math.hypot(goal.getLongitude() - start.getLongitude(), goal.getLatitude() - start.getLatitude());
+        return distance >= properties.getBidirectionalMinMoves() * MOVE_DISTANCE
+                && !noFlyZones.isInAnyZone(start.getLongitude(), start.getLatitude())
+                && !noFlyZones.isInAnyZone(goal.getLongitude(), goal.getLatitude());
     }
 
-    private Region convertToRegion(RestrictedArea area) {
-        return Region.builder()
-                .name(area.getName())
-                .vertices(area.getVertices())
+    private static LngLat toLngLat(long x, long y, double startLng, double startLat) {
+        return LngLat.builder()
+                .longitude(startLng + MoveLattice.toDegrees(x))
+                .latitude(startLat + MoveLattice.toDegrees(y))
                 .build();
     }
 
-    private boolean lineSegmentsIntersect(LngLat p1, LngLat p2, LngLat p3, LngLat p4) {
-        double d1 = direction(p3, p4, p1);
-        double d2 = direction(p3, p4, p2);
-        double d3 = direction(p1, p2, p3);
-        double d4 = direction(p1, p2, p4);
+    /**
+     * Prepared geometry for the restricted areas, rebuilt only when a different list is passed in;
+     * a rebuild also starts the visibility graph and the free-space components, so no search
+     * waits for them, and stops the background builds for the version it replaces
+     */
+    private PreparedObstacles prepared(List<RestrictedArea> restrictedAreas) {
+        PreparedObstacles current = obstacles.get();
+        if (current != null && current.isFor(restrictedAreas)) {
+            return current;
+        }
+        PreparedObstacles rebuilt = PreparedObstacles.build(restrictedAreas);
+        if (properties.isVisibilityHeuristic() && !rebuilt.isEmpty()) {
+            try {
+                rebuilt.buildVisibilityGraph(backgroundExecutor);
+            } catch (RejectedExecutionException e) {
+                // executor shut down
+                logger.debug("Skipping the visibility graph during shutdown");
+            }
+        }
+        try {
+            rebuilt.buildFreeSpaceComponents(backgroundExecutor);
+        } catch (RejectedExecutionException e) {
+            // executor shut down
+            logger.debug("Skipping the free-space components during shutdown");
+        }
+        PreparedObstacles replaced = obstacles.getAndSet(rebuilt);
+        if (replaced != null) {
+            replaced.retire();
+        }
+        return rebuilt;
+    }
 
-        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) &&
-                ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
-            return true;
+    private static List<LngLat> toPath(long[] offsets, double startLng, double startLat) {
+        List<LngLat> path = new ArrayList<>(offsets.length / 2);
+        for (int i = 0; i < offsets.length; i += 2) {
+            path.add(toLngLat(offsets[i], offsets[i + 1], startLng, startLat));
         }
-        return false;
+        return path;
     }
 
-    private double direction(LngLat p1, LngLat p2, LngLat p3) {
-        return (p3.getLongitude() - p1.getLongitude()) * (p2.getLatitude() - p1.getLatitude()) -
-                (p2.getLongitude() - p1.getLongitude()) * (p3.getLatitude() - p1.getLatitude());
+    /**
+     * Register the leg cache's hit, miss and eviction counters and its size
+     * @param registry meter registry to bind to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ilp.pathfinding.leg-cache.hits", legCache, LegCache::hitCount)
+                .description("Flight legs served from the leg cache")
+                .register(registry);
+        FunctionCounter.builder("ilp.pathfinding.leg-cache.misses", legCache, LegCache::missCount)
+                .description("Flight legs searched because they were not cached")
+                .register(registry);
+        FunctionCounter.builder("ilp.pathfinding.leg-cache.evictions", legCache, LegCache::evictionCount)
+                .description("Flight legs evicted to keep the leg cache within its budget")
+                .register(registry);
+        Gauge.builder("ilp.pathfinding.leg-cache.size", legCache, LegCache::size)
+                .description("Flight legs currently cached")
+                .register(registry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,760 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.PolygonColumns;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * No-fly zones prepared for the path search: packed vertex arrays, a bounding box per zone and
+ * a uniform grid from each cell to the zone edges and zone boxes overlapping it, so a move is
+ * only tested against the geometry near it; an {@link OccupancyGrid} answers most moves before
+ * any geometry is touched. Built once per version of the restricted-area list and immutable
+ * afterwards, so one instance is shared by concurrent searches.
+ * <p>
+ * The tests reproduce {@link RestService#isInRegion} (bounding box, on-edge tolerance, ray cast)
+ * and the strict segment crossing test the search used before, so a move is blocked exactly
+ * when it was blocked by the per-region checks.
+ */
+final class PreparedObstacles {
+
+    private static final double ON_EDGE_TOLERANCE = 1e-10;
+    // widens a rectangle tested against zone edges well beyond the on-edge tolerance
+    private static final double EDGE_SLACK = 1e-9;
+    private static final int MAX_CELLS_PER_AXIS = 256;
+    private static final double MIN_CELL_SIZE = 0.0003;
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final PreparedObstacles NONE = new PreparedObstacles(List.of(), new int[]{0}, new double[0], new double[0]);
+
+    private final List<RestrictedArea> source;
+    private final long version = VERSIONS.incrementAndGet();
+
+    // vertices of zone p are [vertexStart[p], vertexStart[p + 1]); edge i runs from vertex i to the next one, wrapping
+    private final int[] vertexStart;
+    private final double[] lng;
+    private final double[] lat;
+    private final int[] next;
+
+    private final double[] minLng;
+    private final double[] minLat;
+    private final double[] maxLng;
+    private final double[] maxLat;
+
+    private final double gridLng;
+    private final double gridLat;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellEdgeStart;
+    private final int[] cellEdges;
+    private final int[] cellZoneStart;
+    private final int[] cellZones;
+    private final OccupancyGrid occupancy;
+    private final CompletableFuture<VisibilityGraph> visibilityGraph = new CompletableFuture<>();
+    private final AtomicBoolean visibilityGraphStarted = new AtomicBoolean();
+    private final CompletableFuture<FreeSpaceComponents> freeSpaceComponents = new CompletableFuture<>();
+    private final AtomicBoolean freeSpaceComponentsStarted = new AtomicBoolean();
+    private volatile boolean landmarksBuilt;
+    private LandmarkDistances landmarkDistances;
+    private final Map<LngLat, CompletableFuture<ReachabilityField>> reachabilityFields = new ConcurrentHashMap<>();
+    private volatile boolean retired;
+
+    private PreparedObstacles(List<RestrictedArea> source, int[] vertexStart, double[] lng, double[] lat) {
+        this.source = source;
+        this.vertexStart = vertexStart;
+        this.lng = lng;
+        this.lat = lat;
+
+        int zones = vertexStart.length - 1;
+        next = new int[lng.length];
+        for (int p = 0; p < zones; p++) {
+            for (int v = vertexStart[p]; v < vertexStart[p + 1]; v++) {
+                next[v] = v + 1 < vertexStart[p + 1] ? v + 1 : vertexStart[p];
+            }
+        }
+        minLng = new double[zones];
+        minLat = new double[zones];
+        maxLng = new double[zones];
+        maxLat = new double[zones];
+        double allMinLng = Double.MAX_VALUE;
+        double allMinLat = Double.MAX_VALUE;
+        double allMaxLng = -Double.MAX_VALUE;
+        double allMaxLat = -Double.MAX_VALUE;
+        for (int p = 0; p < zones; p++) {
+            minLng[p] = Double.MAX_VALUE;
+            minLat[p] = Double.MAX_VALUE;
+            maxLng[p] = -Double.MAX_VALUE;
+            maxLat[p] = -Double.MAX_VALUE;
+            for (int v = vertexStart[p]; v < vertexStart[p + 1]; v++) {
+                if (lng[v] < minLng[p]) minLng[p] = lng[v];
+                if (lng[v] > maxLng[p]) maxLng[p] = lng[v];
+                if (lat[v] < minLat[p]) minLat[p] = lat[v];
+                if (lat[v] > maxLat[p]) maxLat[p] = lat[v];
+            }
+            if (minLng[p] <= maxLng[p] && minLat[p] <= maxLat[p]) {
+                allMinLng = Math.min(allMinLng, minLng[p]);
+                allMinLat = Math.min(allMinLat, minLat[p]);
+                allMaxLng = Math.max(allMaxLng, maxLng[p]);
+                allMaxLat = Math.max(allMaxLat, maxLat[p]);
+            }
+        }
+
+        if (allMinLng > allMaxLng) {
+            // no zone has a usable vertex
+            gridLng = 0;
+            gridLat = 0;
+            cellSize = 1;
+            columns = 0;
+            rows = 0;
+            cellEdgeStart = new int[]{0};
+            cellEdges = new int[0];
+            cellZoneStart = new int[]{0};
+            cellZones = new int[0];
+            occupancy = null;
+            return;
+        }
+
+        double extent = Math.max(allMaxLng - allMinLng, allMaxLat - allMinLat);
+        gridLng = allMinLng;
+        gridLat = allMinLat;
+        cellSize = Math.max(extent / MAX_CELLS_PER_AXIS, MIN_CELL_SIZE);
+        columns = (int) ((allMaxLng - allMinLng) / cellSize) + 1;
+        rows = (int) ((allMaxLat - allMinLat) / cellSize) + 1;
+
+        // two passes per table: count entries per cell, then fill (compressed rows)
+        int cells = columns * rows;
+        cellEdgeStart = new int[cells + 1];
+        cellZoneStart = new int[cells + 1];
+        for (int p = 0; p < zones; p++) {
+            if (minLng[p] <= maxLng[p] && minLat[p] <= maxLat[p]) {
+                forEachCell(minLng[p], minLat[p], maxLng[p], maxLat[p], cell -> cellZoneStart[cell + 1]++);
+                for (int v = vertexStart[p]; v < vertexStart[p + 1]; v++) {
+                    int w = next[v];
+                    forEachCell(Math.min(lng[v], lng[w]), Math.min(lat[v], lat[w]),
+                            Math.max(lng[v], lng[w]), Math.max(lat[v], lat[w]), cell -> cellEdgeStart[cell + 1]++);
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            cellEdgeStart[cell + 1] += cellEdgeStart[cell];
+            cellZoneStart[cell + 1] += cellZoneStart[cell];
+        }
+        cellEdges = new int[cellEdgeStart[cells]];
+        cellZones = new int[cellZoneStart[cells]];
+        int[] edgeFill = Arrays.copyOf(cellEdgeStart, cells);
+        int[] zoneFill = Arrays.copyOf(cellZoneStart, cells);
+        for (int p = 0; p < zones; p++) {
+            if (minLng[p] <= maxLng[p] && minLat[p] <= maxLat[p]) {
+                int zone = p;
+                forEachCell(minLng[p], minLat[p], maxLng[p], maxLat[p], cell -> cellZones[zoneFill[cell]++] = zone);
+                for (int v = vertexStart[p]; v < vertexStart[p + 1]; v++) {
+                    int edge = v;
+                    int w = next[v];
+                    forEachCell(Math.min(lng[v], lng[w]), Math.min(lat[v], lat[w]),
+                            Math.max(lng[v], lng[w]), Math.max(lat[v], lat[w]), cell -> cellEdges[edgeFill[cell]++] = edge);
+                }
+            }
+        }
+
+        occupancy = OccupancyGrid.build(allMinLng, allMinLat, allMaxLng, allMaxLat, lng, lat, next, this::isInAnyZone);
+    }
+
+    /**
+     * Prepare the given restricted areas
+     * @param areas restricted areas; areas without vertices never block a move
+     * @return the prepared obstacles
+     */
+    static PreparedObstacles build(List<RestrictedArea> areas) {
+        if (areas.isEmpty()) {
+            return NONE;
+        }
+
+        // reference data parsed into columns already has the packed layout; other lists are packed here
+        PolygonColumns columns = PolygonColumns.backing(areas);
+        if (columns != null) {
+            int[] vertexStart = new int[columns.size() + 1];
+            double[] lng = new double[columns.vertexCount()];
+            double[] lat = new double[columns.vertexCount()];
+            for (int p = 0; p < columns.size(); p++) {
+                vertexStart[p + 1] = columns.vertexEnd(p);
+            }
+            for (int v = 0; v < lng.length; v++) {
+                lng[v] = columns.lng(v);
+                lat[v] = columns.lat(v);
+            }
+            return new PreparedObstacles(areas, vertexStart, lng, lat);
+        }
+
+        int[] vertexStart = new int[areas.size() + 1];
+        int total = 0;
+        for (RestrictedArea area : areas) {
+            total += area == null || area.getVertices() == null ? 0 : area.getVertices().size();
+        }
+        double[] lng = new double[total];
+        double[] lat = new double[total];
+        for (int p = 0; p < areas.size(); p++) {
+            RestrictedArea area = areas.get(p);
+            int v = vertexStart[p];
+            if (area != null && area.getVertices() != null) {
+                for (LngLat vertex : area.getVertices()) {
+                    lng[v] = vertex == null || vertex.getLongitude() == null ? Double.NaN : vertex.getLongitude();
+                    lat[v] = vertex == null || vertex.getLatitude() == null ? Double.NaN : vertex.getLatitude();
+                    v++;
+                }
+            }
+            vertexStart[p + 1] = v;
+        }
+        return new PreparedObstacles(areas, vertexStart, lng, lat);
+    }
+
+    /**
+     * @return true if these obstacles were prepared from exactly this list
+     */
+    boolean isFor(List<RestrictedArea> areas) {
+        return source == areas;
+    }
+
+    /**
+     * @return number distinguishing this preparation from every other one built by this process,
+     * so results computed against it can be keyed on it
+     */
+    long version() {
+        return version;
+    }
+
+    boolean isEmpty() {
+        return cellZones.length == 0;
+    }
+
+    /**
+     * Mark this version replaced by a newer one: background builds for it not yet started are
+     * skipped and running ones stop, while searches already using it are unaffected
+     */
+    void retire() {
+        retired = true;
+        reachabilityFields.values().forEach(field -> field.cancel(false));
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Whether a straight move is blocked: either end lies in (or on the edge of) a zone, or the
+     * move properly crosses a zone edge
+     */
+    boolean blocks(double fromLng, double fromLat, double toLng, double toLat) {
+        if (isEmpty()) {
+            return false;
+        }
+        int occupied = occupancy.classifyMove(fromLng, fromLat, toLng, toLat);
+        if (occupied != OccupancyGrid.UNKNOWN) {
+            return occupied == OccupancyGrid.BLOCKED;
+        }
+        return isInAnyZone(fromLng, fromLat)
+                || isInAnyZone(toLng, toLat)
+                || crossesAnyEdge(fromLng, fromLat, toLng, toLat);
+    }
+
+    /**
+     * Whether no zone is within a move of the point, so no move from it can be blocked
+     */
+    boolean isInOpenSpace(double pointLng, double pointLat) {
+        return isEmpty() || occupancy.isClear(pointLng, pointLat);
+    }
+
+    /**
+     * Whether the point is inside or on the edge of any zone
+     */
+    boolean isInAnyZone(double pointLng, double pointLat) {
+        int cell = cellOf(pointLng, pointLat);
+        if (cell < 0) {
+            return false;
+        }
+        for (int i = cellZoneStart[cell]; i < cellZoneStart[cell + 1]; i++) {
+            if (isInZone(cellZones[i], pointLng, pointLat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInZone(int p, double pointLng, double pointLat) {
+        if (pointLng < minLng[p] || pointLng > maxLng[p] || pointLat < minLat[p] || pointLat > maxLat[p]) {
+            return false;
+        }
+        // on an edge counts as inside
+        return isOnEdge(p, pointLng, pointLat) || rayCrossings(p, pointLng, pointLat) % 2 != 0;
+    }
+
+    /**
+     * Whether the point lies inside some zone and not within the on-edge tolerance of it
+     */
+    boolean isStrictlyInsideAnyZone(double pointLng, double pointLat) {
+        int cell = cellOf(pointLng, pointLat);
+        if (cell < 0) {
+            return false;
+        }
+        for (int i = cellZoneStart[cell]; i < cellZoneStart[cell + 1]; i++) {
+            if (isStrictlyInZone(cellZones[i], pointLng, pointLat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isStrictlyInZone(int p, double pointLng, double pointLat) {
+        return pointLng >= minLng[p] && pointLng <= maxLng[p] && pointLat >= minLat[p] && pointLat <= maxLat[p]
+                && !isOnEdge(p, pointLng, pointLat) && rayCrossings(p, pointLng, pointLat) % 2 != 0;
+    }
+
+    /**
+     * Whether a rectangle lies entirely inside one zone: its corners are strictly inside the
+     * zone and no edge of the zone reaches it. Parts of a rectangle covered only by several
+     * overlapping zones together do not count
+     */
+    boolean isCoveredByOneZone(double west, double south, double east, double north) {
+        int cell = cellOf((west + east) / 2, (south + north) / 2);
+        if (cell < 0) {
+            return false;
+        }
+        zones:
+        for (int i = cellZoneStart[cell]; i < cellZoneStart[cell + 1]; i++) {
+            int p = cellZones[i];
+            if (!isStrictlyInZone(p, west, south) || !isStrictlyInZone(p, east, south)
+                    || !isStrictlyInZone(p, east, north) || !isStrictlyInZone(p, west, north)) {
+                continue;
+            }
+            for (int v = vertexStart[p]; v < vertexStart[p + 1]; v++) {
+                if (edgeReaches(v, west - EDGE_SLACK, south - EDGE_SLACK, east + EDGE_SLACK, north + EDGE_SLACK)) {
+                    continue zones;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether the edge starting at a vertex meets a rectangle, clipping the edge to it
+     */
+    private boolean edgeReaches(int v, double west, double south, double east, double north) {
+        int w = next[v];
+        double dx = lng[w] - lng[v];
+        double dy = lat[w] - lat[v];
+        double enter = 0;
+        double exit = 1;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {lng[v] - west, east - lng[v], lat[v] - south, north - lat[v]};
+        for (int side = 0; side < 4; side++) {
+            if (p[side] == 0) {
+                if (q[side] < 0) {
+                    return false;
+                }
+            } else {
+                double t = q[side] / p[side];
+                if (p[side] < 0) {
+                    enter = Math.max(enter, t);
+                } else {
+                    exit = Math.min(exit, t);
+                }
+            }
+        }
+        return enter <= exit;
+    }
+
+    private boolean isOnEdge(int p, double pointLng, double pointLat) {
+        for (int v = vertexStart[p]; v < vertexStart[p + 1]; v++) {
+            int w = next[v];
+            if (Math.min(lng[v], lng[w]) <= pointLng && pointLng <= Math.max(lng[v], lng[w])
+                    && Math.min(lat[v], lat[w]) <= pointLat && pointLat <= Math.max(lat[v], lat[w])) {
+                double area = (lng[v] - pointLng) * (lat[w] - pointLat) - (lng[w] - pointLng) * (lat[v] - pointLat);
+                if (Math.abs(area) < ON_EDGE_TOLERANCE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Edges of the zone crossed by a ray from the point towards positive longitude
+     */
+    private int rayCrossings(int p, double pointLng, double pointLat) {
+        int crossings = 0;
+        for (int v = vertexStart[p]; v < vertexStart[p + 1]; v++) {
+            int w = next[v];
+            if ((lat[v] > pointLat) != (lat[w] > pointLat)
+                    && pointLng < ((lng[w] - lng[v]) * (pointLat - lat[v])) / (lat[w] - lat[v]) + lng[v]) {
+                crossings++;
+            }
+        }
+        return crossings;
+    }
+
+    /**
+     * Whether the straight line between two points properly crosses no zone edge. Unlike
+     * {@link #blocks} this is meant for long segments: it walks only the grid cells along the
+     * line, and it does not look at the end points themselves.
+     */
+    boolean sees(double fromLng, double fromLat, double toLng, double toLat) {
+        return !anyEdgeAlong(fromLng, fromLat, toLng, toLat,
+                v -> crossesEdge(v, fromLng, fromLat, toLng, toLat));
+    }
+
+    /**
+     * Whether one zone edge hides every point within a distance of a place from a viewpoint: it
+     * crosses both tangents from the viewpoint to that disc and keeps clear of the disc, so it
+     * cuts every line from the viewpoint to the disc. Such an edge crosses the line to the place,
+     * so like {@link #sees} this walks only the grid cells along that line.
+     */
+    boolean hidesDisc(double fromLng, double fromLat, double placeLng, double placeLat, double radius) {
+        double dx = placeLng - fromLng;
+        double dy = placeLat - fromLat;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance <= radius) {
+            return false;
+        }
+        // the tangents leave at this angle either side of the line to the place, and touch the
+        // disc at cos of it times that line's length from the viewpoint
+        double sin = radius / distance;
+        double cos = Math.sqrt(distance * distance - radius * radius) / distance;
+        double leftLng = fromLng + cos * (dx * cos - dy * sin);
+        double leftLat = fromLat + cos * (dx * sin + dy * cos);
+        double rightLng = fromLng + cos * (dx * cos + dy * sin);
+        double rightLat = fromLat + cos * (dy * cos - dx * sin);
+        return anyEdgeAlong(fromLng, fromLat, placeLng, placeLat,
+                v -> crossesEdge(v, fromLng, fromLat, leftLng, leftLat)
+                        && crossesEdge(v, fromLng, fromLat, rightLng, rightLat)
+                        && squaredDistanceToEdge(v, placeLng, placeLat) > radius * radius);
+    }
+
+    private interface EdgeTest {
+        boolean test(int v);
+    }
+
+    /**
+     * Whether any zone edge in the grid cells along a line passes a test
+     */
+    private boolean anyEdgeAlong(double fromLng, double fromLat, double toLng, double toLat, EdgeTest test) {
+        if (isEmpty()) {
+            return false;
+        }
+        double dx = toLng - fromLng;
+        double dy = toLat - fromLat;
+
+        // clip the segment to the grid
+        double enter = 0;
+        double exit = 1;
+        double gridWidth = columns * cellSize;
+        double gridHeight = rows * cellSize;
+        if (dx == 0) {
+            if (fromLng < gridLng || fromLng > gridLng + gridWidth) {
+                return false;
+            }
+        } else {
+            double a = (gridLng - fromLng) / dx;
+            double b = (gridLng + gridWidth - fromLng) / dx;
+            enter = Math.max(enter, Math.min(a, b));
+            exit = Math.min(exit, Math.max(a, b));
+        }
+        if (dy == 0) {
+            if (fromLat < gridLat || fromLat > gridLat + gridHeight) {
+                return false;
+            }
+        } else {
+            double a = (gridLat - fromLat) / dy;
+            double b = (gridLat + gridHeight - fromLat) / dy;
+            enter = Math.max(enter, Math.min(a, b));
+            exit = Math.min(exit, Math.max(a, b));
+        }
+        if (enter > exit) {
+            return false;
+        }
+
+        // walk the cells the line passes through
+        int column = clamp(columnOf(fromLng + enter * dx), columns);
+        int row = clamp(rowOf(fromLat + enter * dy), rows);
+        int lastColumn = clamp(columnOf(fromLng + exit * dx), columns);
+        int lastRow = clamp(rowOf(fromLat + exit * dy), rows);
+        int stepColumn = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        double nextColumnAt = dx == 0 ? Double.POSITIVE_INFINITY
+                : (gridLng + (column + (dx > 0 ? 1 : 0)) * cellSize - fromLng) / dx;
+        double nextRowAt = dy == 0 ? Double.POSITIVE_INFINITY
+                : (gridLat + (row + (dy > 0 ? 1 : 0)) * cellSize - fromLat) / dy;
+        double columnSpan = dx == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+        double rowSpan = dy == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+
+        int steps = Math.abs(lastColumn - column) + Math.abs(lastRow - row);
+        for (int step = 0; step <= steps; step++) {
+            int cell = row * columns + column;
+            for (int i = cellEdgeStart[cell]; i < cellEdgeStart[cell + 1]; i++) {
+                if (test.test(cellEdges[i])) {
+                    return true;
+                }
+            }
+            if (nextColumnAt < nextRowAt) {
+                column += stepColumn;
+                nextColumnAt += columnSpan;
+            } else {
+                row += stepRow;
+                nextRowAt += rowSpan;
+            }
+            if (column < 0 || column >= columns || row < 0 || row >= rows) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visibility graph over the zone vertices, kept with this version: built here if nobody has
+     * started it, otherwise waited for, so only for callers off the request path
+     * @return the graph, or null if the zones have too many vertices for one or were replaced
+     * before it was built
+     */
+    VisibilityGraph visibilityGraph() {
+        if (visibilityGraphStarted.compareAndSet(false, true)) {
+            completeVisibilityGraph();
+        }
+        return visibilityGraph.join();
+    }
+
+    /**
+     * Start building the visibility graph unless it is built or being built; a small one is
+     * built now, a larger one by the executor
+     */
+    void buildVisibilityGraph(Executor executor) {
+        if (visibilityGraphStarted.compareAndSet(false, true)) {
+            if (vertexCount() <= VisibilityGraph.PREPARED_VERTICES) {
+                completeVisibilityGraph();
+            } else {
+                try {
+                    executor.execute(this::completeVisibilityGraph);
+                } catch (RejectedExecutionException e) {
+                    visibilityGraphStarted.set(false);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the visibility graph if it has been built, otherwise null; never waits
+     */
+    VisibilityGraph builtVisibilityGraph() {
+        return visibilityGraph.isDone() && !visibilityGraph.isCompletedExceptionally()
+                ? visibilityGraph.join() : null;
+    }
+
+    private void completeVisibilityGraph() {
+        if (retired) {
+            visibilityGraph.complete(null);
+            return;
+        }
+        try {
+            visibilityGraph.complete(vertexCount() > VisibilityGraph.MAX_VERTICES ? null : VisibilityGraph.build(this));
+        } catch (RuntimeException e) {
+            visibilityGraph.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Whether no flight from the start can end within the given distance of the goal, decided
+     * from the free-space components once {@link #buildFreeSpaceComponents} has labelled them
+     * @return true only when that is certain; false while the components are not yet labelled
+     */
+    boolean separates(double startLng, double startLat, double goalLng, double goalLat, double withinDistance) {
+        if (!freeSpaceComponents.isDone() || freeSpaceComponents.isCompletedExceptionally()) {
+            return false;
+        }
+        FreeSpaceComponents components = freeSpaceComponents.join();
+        return components != null && components.separates(startLng, startLat, goalLng, goalLat, withinDistance);
+    }
+
+    /**
+     * Start labelling the free-space components by the executor unless they are labelled or
+     * being labelled; the labels are kept with this version
+     */
+    void buildFreeSpaceComponents(Executor executor) {
+        if (!isEmpty() && freeSpaceComponentsStarted.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::completeFreeSpaceComponents);
+            } catch (RejectedExecutionException e) {
+                freeSpaceComponentsStarted.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void completeFreeSpaceComponents() {
+        if (retired) {
+            freeSpaceComponents.complete(null);
+            return;
+        }
+        try {
+            freeSpaceComponents.complete(FreeSpaceComponents.build(occupancy, this::isCoveredByOneZone));
+        } catch (RuntimeException e) {
+            freeSpaceComponents.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Landmark distances for the ALT heuristic, built on first use and kept with this version
+     * @return the distances, or null if none are kept for these zones
+     */
+    LandmarkDistances landmarkDistances() {
+        if (!landmarksBuilt) {
+            synchronized (this) {
+                if (!landmarksBuilt) {
+                    landmarkDistances = LandmarkDistances.build(this);
+                    landmarksBuilt = true;
+                }
+            }
+        }
+        return landmarkDistances;
+    }
+
+    /**
+     * Start building a service point's reachability field unless it is built or being built;
+     * the field is kept with this version
+     * @param radiusMoves reach of the field's grid
+     * @param executor    runs the build
+     */
+    void buildReachabilityField(LngLat source, int radiusMoves, Executor executor) {
+        if (retired) {
+            return;
+        }
+        reachabilityFields.computeIfAbsent(source, point -> CompletableFuture.supplyAsync(() -> {
+            if (retired) {
+                throw new CancellationException("Zones replaced before building a reachability field");
+            }
+            return ReachabilityField.build(this, point.getLongitude(), point.getLatitude(), radiusMoves);
+        }, executor));
+    }
+
+    /**
+     * @return the service point's reachability field if it has been built, otherwise null
+     */
+    ReachabilityField builtReachabilityField(LngLat source) {
+        CompletableFuture<ReachabilityField> field = reachabilityFields.get(source);
+        return field != null && field.isDone() && !field.isCompletedExceptionally() ? field.join() : null;
+    }
+
+    int vertexCount() {
+        return lng.length;
+    }
+
+    double vertexLng(int vertex) {
+        return lng[vertex];
+    }
+
+    double vertexLat(int vertex) {
+        return lat[vertex];
+    }
+
+    /**
+     * @return the vertex the edge starting at this vertex runs to
+     */
+    int nextVertex(int vertex) {
+        return next[vertex];
+    }
+
+    private boolean crossesAnyEdge(double fromLng, double fromLat, double toLng, double toLat) {
+        int firstColumn = columnOf(Math.min(fromLng, toLng));
+        int lastColumn = columnOf(Math.max(fromLng, toLng));
+        int firstRow = rowOf(Math.min(fromLat, toLat));
+        int lastRow = rowOf(Math.max(fromLat, toLat));
+        if (lastColumn < 0 || firstColumn >= columns || lastRow < 0 || firstRow >= rows) {
+            return false;
+        }
+        for (int row = Math.max(firstRow, 0); row <= Math.min(lastRow, rows - 1); row++) {
+            for (int column = Math.max(firstColumn, 0); column <= Math.min(lastColumn, columns - 1); column++) {
+                int cell = row * columns + column;
+                for (int i = cellEdgeStart[cell]; i < cellEdgeStart[cell + 1]; i++) {
+                    if (crossesEdge(cellEdges[i], fromLng, fromLat, toLng, toLat)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Proper crossing only: touching or collinear segments do not count
+     */
+    private boolean crossesEdge(int v, double fromLng, double fromLat, double toLng, double toLat) {
+        int w = next[v];
+        double d1 = direction(lng[v], lat[v], lng[w], lat[w], fromLng, fromLat);
+        double d2 = direction(lng[v], lat[v], lng[w], lat[w], toLng, toLat);
+        double d3 = direction(fromLng, fromLat, toLng, toLat, lng[v], lat[v]);
+        double d4 = direction(fromLng, fromLat, toLng, toLat, lng[w], lat[w]);
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0))
+                && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    private double squaredDistanceToEdge(int v, double pointLng, double pointLat) {
+        int w = next[v];
+        double edgeLng = lng[w] - lng[v];
+        double edgeLat = lat[w] - lat[v];
+        double squaredLength = edgeLng * edgeLng + edgeLat * edgeLat;
+        double along = squaredLength == 0 ? 0
+                : ((pointLng - lng[v]) * edgeLng + (pointLat - lat[v]) * edgeLat) / squaredLength;
+        along = Math.max(0, Math.min(1, along));
+        double offLng = lng[v] + along * edgeLng - pointLng;
+        double offLat = lat[v] + along * edgeLat - pointLat;
+        return offLng * offLng + offLat * offLat;
+    }
+
+    private static double direction(double lng1, double lat1, double lng2, double lat2, double lng3, double lat3) {
+        return (lng3 - lng1) * (lat2 - lat1) - (lng2 - lng1) * (lat3 - lat1);
+    }
+
+    private static int clamp(int index, int size) {
+        return Math.max(0, Math.min(size - 1, index));
+    }
+
+    private int cellOf(double pointLng, double pointLat) {
+        int column = columnOf(pointLng);
+        int row = rowOf(pointLat);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+
+    private int columnOf(double pointLng) {
+        return (int) Math.floor((pointLng - gridLng) / cellSize);
+    }
+
+    private int rowOf(double pointLat) {
+        return (int) Math.floor((pointLat - gridLat) / cellSize);
+    }
+
+    @FunctionalInterface
+    private interface CellVisitor {
+        void visit(int cell);
+    }
+
+    private void forEachCell(double fromLng, double fromLat, double toLng, double toLat, CellVisitor visitor) {
+        int lastColumn = Math.min(columnOf(toLng), columns - 1);
+        int lastRow = Math.min(rowOf(toLat), rows - 1);
+        for (int row = Math.max(rowOf(fromLat), 0); row <= lastRow; row++) {
+            for (int column = Math.max(columnOf(fromLng), 0); column <= lastColumn; column++) {
+                visitor.visit(row * columns + column);
+            }
+        }
+    }
+}
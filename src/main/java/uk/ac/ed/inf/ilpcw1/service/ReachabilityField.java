@@ -0,0 +1,341 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Obstacle-avoiding distances from one service point to every cell of a square grid around it,
+ * so that the shortest flight from the service point to a place, or back, is bounded below by
+ * one array read instead of a search. The distances are exact any-angle distances over the
+ * zone visibility graph, which no lattice path is shorter than, taken at each cell centre and
+ * stored as floats.
+ * <p>
+ * The grid is filled by one Dijkstra pass outward from the source's cell. The settled
+ * neighbours of a cell give a flight to its centre, so its distance is no more than the
+ * shortest of those; only the source and the vertices that leave a route within that length
+ * can be the last corner before the centre, and they are tried from the shortest up until one
+ * is seen from it. If none is, that length is kept, which is then a lower bound. Cells the pass
+ * never reaches are worked out from every vertex.
+ * <p>
+ * Bounds are asked for places, and hold for every point within the close distance of one, as
+ * a leg need only end that close to its target. A cell is a move across, so with no zone within
+ * a move of the place (see {@link PreparedObstacles#isInOpenSpace}) all those points see its
+ * cell centre, and are at least the centre's distance less the line to it away; places near a
+ * zone, and places beyond the grid, are bounded from the visibility graph when asked. Built once
+ * per service point and version of the zones; immutable afterwards.
+ */
+final class ReachabilityField {
+
+    private static final double MOVE_LENGTH = 0.00015;
+    private static final double CLOSE_DISTANCE = 0.00015;
+    // 4 MB of distances at most
+    static final int MAX_RADIUS_CELLS = 511;
+    // float rounding of the stored distances, far below a lattice unit's worth of moves
+    private static final double FLOAT_SLACK = 1e-9;
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+    // the eight cells around a cell, and the distance to each in cells
+    private static final int[] NEIGHBOUR_ROW = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] NEIGHBOUR_COLUMN = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final double[] NEIGHBOUR_STEP = {1, Math.sqrt(2), 1, Math.sqrt(2), 1, Math.sqrt(2), 1, Math.sqrt(2)};
+    // cell states during the pass
+    private static final byte UNSEEN = 0;
+    private static final byte FREE = 1;
+    private static final byte SETTLED = 2;
+    private static final byte IN_ZONE = 3;
+
+    private final PreparedObstacles obstacles;
+    private final double sourceLng;
+    private final double sourceLat;
+    private final VisibilityGraph graph;
+    private final VisibilityGraph.GoalDistances toSource;
+    private final double originLng;
+    private final double originLat;
+    private final int side;
+    // distance from the source to the centre of cell [row * side + column]; NaN inside a zone, infinite if unreachable
+    private final float[] distance;
+
+    private ReachabilityField(PreparedObstacles obstacles, double sourceLng, double sourceLat, int radiusCells) {
+        this.obstacles = obstacles;
+        this.sourceLng = sourceLng;
+        this.sourceLat = sourceLat;
+        this.graph = obstacles.isEmpty() ? null : obstacles.visibilityGraph();
+        this.toSource = graph == null ? null : graph.distancesTo(sourceLng, sourceLat);
+        this.side = 2 * radiusCells + 1;
+        // the source sits at the centre of the middle cell
+        this.originLng = sourceLng - (radiusCells + 0.5) * MOVE_LENGTH;
+        this.originLat = sourceLat - (radiusCells + 0.5) * MOVE_LENGTH;
+        this.distance = new float[toSource == null ? 0 : side * side];
+    }
+
+    /**
+     * Compute the field of one service point
+     * @param radiusMoves how far from the source, in moves, the grid reaches; capped at {@link #MAX_RADIUS_CELLS}
+     * @return the field; without zones, or with too many zone vertices for a visibility graph, it
+     * holds no grid, every distance being the straight one
+     * @throws CancellationException if the zones are replaced by a newer version during the build
+     */
+    static ReachabilityField build(PreparedObstacles obstacles, double sourceLng, double sourceLat, int radiusMoves) {
+        ReachabilityField field = new ReachabilityField(obstacles, sourceLng, sourceLat,
+                Math.max(0, Math.min(radiusMoves, MAX_RADIUS_CELLS)));
+        field.fill();
+        return field;
+    }
+
+    private void fill() {
+        if (toSource == null) {
+            return;
+        }
+        int cells = side * side;
+        byte[] state = new byte[cells];
+        int source = (side / 2) * side + side / 2;
+        if (!obstacles.isInAnyZone(sourceLng, sourceLat)) {
+            // shortest flight found so far to each cell's centre through its settled neighbours
+            double[] reach = new double[cells];
+            Arrays.fill(reach, Double.POSITIVE_INFINITY);
+            IndexedMinHeap open = new IndexedMinHeap(4 * side);
+            Corners corners = new Corners();
+            reach[source] = 0;
+            state[source] = FREE;
+            open.insert(source, 0);
+            for (int settled = 1; !open.isEmpty(); settled++) {
+                if (settled % CANCEL_CHECK_INTERVAL == 0 && obstacles.isRetired()) {
+                    throw new CancellationException("Zones replaced while building a reachability field");
+                }
+                int cell = open.pollMin();
+                state[cell] = SETTLED;
+                int row = cell / side;
+                int column = cell % side;
+                double lng = centreLng(column);
+                double lat = centreLat(row);
+                double value = corners.distanceWithin(lng, lat, reach[cell]);
+                distance[cell] = (float) value;
+                for (int n = 0; n < NEIGHBOUR_STEP.length; n++) {
+                    int nextRow = row + NEIGHBOUR_ROW[n];
+                    int nextColumn = column + NEIGHBOUR_COLUMN[n];
+                    if (nextRow < 0 || nextRow >= side || nextColumn < 0 || nextColumn >= side) {
+                        continue;
+                    }
+                    int next = nextRow * side + nextColumn;
+                    double nextLng = centreLng(nextColumn);
+                    double nextLat = centreLat(nextRow);
+                    if (state[next] == UNSEEN) {
+                        state[next] = obstacles.isInAnyZone(nextLng, nextLat) ? IN_ZONE : FREE;
+                    }
+                    double through = value + NEIGHBOUR_STEP[n] * MOVE_LENGTH;
+                    if (state[next] == FREE && through < reach[next]
+                            && !obstacles.blocks(lng, lat, nextLng, nextLat)) {
+                        reach[next] = through;
+                        open.insertOrDecrease(next, through);
+                    }
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (state[cell] == SETTLED) {
+                continue;
+            }
+            double lng = centreLng(cell % side);
+            double lat = centreLat(cell / side);
+            distance[cell] = state[cell] == IN_ZONE || obstacles.isInAnyZone(lng, lat)
+                    ? Float.NaN
+                    : (float) exact(lng, lat);
+        }
+    }
+
+    private double centreLng(int column) {
+        return originLng + (column + 0.5) * MOVE_LENGTH;
+    }
+
+    private double centreLat(int row) {
+        return originLat + (row + 0.5) * MOVE_LENGTH;
+    }
+
+    /**
+     * Exact obstacle-avoiding distance from the source to a point outside the zones
+     * @return the distance, or infinity if no route reaches the point
+     */
+    private double exact(double pointLng, double pointLat) {
+        double straight = Math.hypot(pointLng - sourceLng, pointLat - sourceLat);
+        if (obstacles.sees(pointLng, pointLat, sourceLng, sourceLat)) {
+            return straight;
+        }
+        return Math.max(straight, toSource.fromHidden(pointLng, pointLat));
+    }
+
+    /**
+     * Lower bound on the length of any flight between the source and a point within the close
+     * distance of a place that avoids the zones, as a leg ends anywhere that close to its target
+     * @return the bound in degrees, infinite if no such flight exists
+     */
+    double distanceAtLeast(double placeLng, double placeLat) {
+        double straight = Math.hypot(placeLng - sourceLng, placeLat - sourceLat);
+        if (toSource == null || straight <= CLOSE_DISTANCE) {
+            return Math.max(0, straight - CLOSE_DISTANCE);
+        }
+        int column = (int) Math.floor((placeLng - originLng) / MOVE_LENGTH);
+        int row = (int) Math.floor((placeLat - originLat) / MOVE_LENGTH);
+        if (column < 0 || column >= side || row < 0 || row >= side
+                || !obstacles.isInOpenSpace(placeLng, placeLat)) {
+            return nearPlace(placeLng, placeLat, straight);
+        }
+        // no zone within the close distance: every point that close sees the cell centre
+        double centre = distance[row * side + column];
+        double offset = Math.hypot(placeLng - centreLng(column), placeLat - centreLat(row)) + FLOAT_SLACK;
+        return Math.max(straight, centre - offset) - CLOSE_DISTANCE;
+    }
+
+    /**
+     * Lower bound for a place with a zone within the close distance. A flight to a point that
+     * close first meets the disc around the place at a point seen from the source or from its
+     * last corner, so is at least that corner's distance plus the gap from it to the disc;
+     * corners shut off from the whole disc by a zone edge are passed over.
+     */
+    private double nearPlace(double placeLng, double placeLat, double straight) {
+        if (!obstacles.hidesDisc(sourceLng, sourceLat, placeLng, placeLat, CLOSE_DISTANCE)) {
+            return straight - CLOSE_DISTANCE;
+        }
+        int count = graph.size();
+        double[] via = new double[count];
+        Integer[] order = new Integer[count];
+        for (int v = 0; v < count; v++) {
+            double gap = Math.hypot(graph.vertexLng(v) - placeLng, graph.vertexLat(v) - placeLat) - CLOSE_DISTANCE;
+            via[v] = toSource.fromVertex(v) + Math.max(0, gap);
+            order[v] = v;
+        }
+        Arrays.sort(order, (v, w) -> Double.compare(via[v], via[w]));
+        for (int v : order) {
+            if (Double.isInfinite(via[v])) {
+                break;
+            }
+            if (!obstacles.hidesDisc(graph.vertexLng(v), graph.vertexLat(v), placeLng, placeLat, CLOSE_DISTANCE)) {
+                return Math.max(straight - CLOSE_DISTANCE, via[v]);
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * The graph vertices in a coarse grid of buckets, each with the smallest distance from the
+     * source of its vertices, so a cell only looks at the vertices that could be the last corner
+     * of a flight to it within a given length
+     */
+    private final class Corners {
+
+        private static final int BUCKETS_PER_AXIS = 16;
+
+        private final double minLng;
+        private final double minLat;
+        private final double bucketWidth;
+        private final double bucketHeight;
+        // vertices of bucket b are bucketVertex[bucketStart[b] .. bucketStart[b + 1])
+        private final int[] bucketStart;
+        private final int[] bucketVertex;
+        private final double[] bucketNearest;
+        // candidates of the current cell
+        private final int[] candidate;
+        private final double[] candidateDistance;
+
+        Corners() {
+            int count = graph.size();
+            double maxLng = Double.NEGATIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double lowLng = Double.POSITIVE_INFINITY;
+            double lowLat = Double.POSITIVE_INFINITY;
+            for (int v = 0; v < count; v++) {
+                lowLng = Math.min(lowLng, graph.vertexLng(v));
+                lowLat = Math.min(lowLat, graph.vertexLat(v));
+                maxLng = Math.max(maxLng, graph.vertexLng(v));
+                maxLat = Math.max(maxLat, graph.vertexLat(v));
+            }
+            this.minLng = lowLng;
+            this.minLat = lowLat;
+            this.bucketWidth = Math.max((maxLng - lowLng) / BUCKETS_PER_AXIS, Double.MIN_NORMAL);
+            this.bucketHeight = Math.max((maxLat - lowLat) / BUCKETS_PER_AXIS, Double.MIN_NORMAL);
+
+            int buckets = BUCKETS_PER_AXIS * BUCKETS_PER_AXIS;
+            int[] bucketOf = new int[count];
+            bucketStart = new int[buckets + 1];
+            bucketNearest = new double[buckets];
+            Arrays.fill(bucketNearest, Double.POSITIVE_INFINITY);
+            for (int v = 0; v < count; v++) {
+                int b = bucketRow(graph.vertexLat(v)) * BUCKETS_PER_AXIS + bucketColumn(graph.vertexLng(v));
+                bucketOf[v] = b;
+                bucketStart[b + 1]++;
+                bucketNearest[b] = Math.min(bucketNearest[b], toSource.fromVertex(v));
+            }
+            for (int b = 0; b < buckets; b++) {
+                bucketStart[b + 1] += bucketStart[b];
+            }
+            bucketVertex = new int[count];
+            int[] fill = Arrays.copyOf(bucketStart, buckets);
+            for (int v = 0; v < count; v++) {
+                bucketVertex[fill[bucketOf[v]]++] = v;
+            }
+            candidate = new int[count];
+            candidateDistance = new double[count];
+        }
+
+        /**
+         * Distance from the source to a point outside the zones, exact if it is no more than the limit
+         * @return the distance, or the limit if the distance is more; either way a lower bound
+         */
+        double distanceWithin(double pointLng, double pointLat, double limit) {
+            double dLng = pointLng - sourceLng;
+            double dLat = pointLat - sourceLat;
+            double straight = Math.sqrt(dLng * dLng + dLat * dLat);
+            if (obstacles.sees(pointLng, pointLat, sourceLng, sourceLat)) {
+                return straight;
+            }
+            int found = 0;
+            for (int b = 0; b < bucketNearest.length; b++) {
+                // the bucket's vertices are all further than this from the point
+                double spare = limit - bucketNearest[b];
+                if (spare < 0 || squaredDistanceToBucket(b, pointLng, pointLat) > spare * spare) {
+                    continue;
+                }
+                for (int i = bucketStart[b]; i < bucketStart[b + 1]; i++) {
+                    int v = bucketVertex[i];
+                    double vLng = graph.vertexLng(v) - pointLng;
+                    double vLat = graph.vertexLat(v) - pointLat;
+                    double via = Math.sqrt(vLng * vLng + vLat * vLat) + toSource.fromVertex(v);
+                    if (via <= limit) {
+                        candidate[found] = v;
+                        candidateDistance[found++] = via;
+                    }
+                }
+            }
+            for (int tried = 0; tried < found; tried++) {
+                int best = tried;
+                for (int i = tried + 1; i < found; i++) {
+                    if (candidateDistance[i] < candidateDistance[best]) {
+                        best = i;
+                    }
+                }
+                int v = candidate[best];
+                double via = candidateDistance[best];
+                candidate[best] = candidate[tried];
+                candidateDistance[best] = candidateDistance[tried];
+                if (obstacles.sees(pointLng, pointLat, graph.vertexLng(v), graph.vertexLat(v))) {
+                    return Math.max(straight, via);
+                }
+            }
+            return Math.max(straight, limit);
+        }
+
+        private int bucketColumn(double lng) {
+            return Math.max(0, Math.min(BUCKETS_PER_AXIS - 1, (int) ((lng - minLng) / bucketWidth)));
+        }
+
+        private int bucketRow(double lat) {
+            return Math.max(0, Math.min(BUCKETS_PER_AXIS - 1, (int) ((lat - minLat) / bucketHeight)));
+        }
+
+        private double squaredDistanceToBucket(int b, double pointLng, double pointLat) {
+            double left = minLng + (b % BUCKETS_PER_AXIS) * bucketWidth;
+            double bottom = minLat + (b / BUCKETS_PER_AXIS) * bucketHeight;
+            double dLng = Math.max(0, Math.max(left - pointLng, pointLng - (left + bucketWidth)));
+            double dLat = Math.max(0, Math.max(bottom - pointLat, pointLat - (bottom + bucketHeight)));
+            return dLng * dLng + dLat * dLat;
+        }
+    }
+}
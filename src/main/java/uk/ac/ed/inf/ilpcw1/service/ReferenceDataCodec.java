@@ -0,0 +1,425 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import uk.ac.ed.inf.ilpcw1.data.Drone;
+import uk.ac.ed.inf.ilpcw1.data.DroneAvailabilityDetails;
+import uk.ac.ed.inf.ilpcw1.data.DroneColumns;
+import uk.ac.ed.inf.ilpcw1.data.DroneServicePointRequest;
+import uk.ac.ed.inf.ilpcw1.data.DronesAtServicePoint;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.PolygonColumns;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+import uk.ac.ed.inf.ilpcw1.data.ServicePoints;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding of the reference data, used to persist the last good snapshot and
+ * warm-start from it. Each of the four resources is stored with its ETag / Last-Modified /
+ * content hash, so the first revalidation after a restart is a 304 or a hash match and the
+ * loaded lists are kept as they are.
+ * <p>
+ * Layout (big-endian): magic, format version, snapshot version, fetched-at millis, then the
+ * drones, availability, service points and restricted areas sections, and a CRC32 of all
+ * preceding bytes. Strings are length-prefixed UTF-8 and nullable numbers carry a presence byte.
+ * Drones and restricted areas are written from and read back into their columnar form.
+ */
+final class ReferenceDataCodec {
+
+    private static final int MAGIC = 0x494C5053; // "ILPS"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Decoded contents of a snapshot file
+     */
+    record Persisted(long version,
+                     Instant fetchedAt,
+                     UpstreamResource.Version<Drone> drones,
+                     UpstreamResource.Version<DroneServicePointRequest> availability,
+                     UpstreamResource.Version<ServicePoints> servicePoints,
+                     UpstreamResource.Version<RestrictedArea> restrictedAreas) {
+    }
+
+    private ReferenceDataCodec() {
+    }
+
+    /**
+     * Write the snapshot to a temporary file next to the target and atomically move it in place,
+     * so a crash mid-write never leaves a truncated snapshot behind
+     * @param file      target file
+     * @param persisted the data to write
+     */
+    static void write(Path file, Persisted persisted) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(persisted.version());
+        out.writeLong(persisted.fetchedAt().toEpochMilli());
+        writeHeader(out, persisted.drones());
+        writeDrones(out, DroneColumns.of(persisted.drones().value()));
+        writeSection(out, persisted.availability(), ReferenceDataCodec::writeAvailability);
+        writeSection(out, persisted.servicePoints(), ReferenceDataCodec::writeServicePoint);
+        writeHeader(out, persisted.restrictedAreas());
+        writeRestrictedAreas(out, PolygonColumns.of(persisted.restrictedAreas().value()));
+        out.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        // a unique sibling per write, so overlapping writers never move each other's partial file
+        Path temp = Files.createTempFile(parent, file.getFileName() + ".", ".tmp");
+        boolean moved = false;
+        try {
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Memory-map and decode a snapshot file
+     * @param file the file written by {@link #write}
+     * @return the decoded snapshot
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    static Persisted read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 32) {
+                throw new IOException("Snapshot file too short: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            ByteBuffer payload = buffer.duplicate().limit((int) size - Long.BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (crc.getValue() != buffer.getLong((int) size - Long.BYTES)) {
+                throw new IOException("Snapshot file checksum mismatch");
+            }
+
+            try {
+                if (buffer.getInt() != MAGIC) {
+                    throw new IOException("Not a reference data snapshot file");
+                }
+                int format = buffer.getInt();
+                if (format != FORMAT_VERSION) {
+                    throw new IOException("Unsupported snapshot format version " + format);
+                }
+                long version = buffer.getLong();
+                Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+                return new Persisted(version, fetchedAt,
+                        readDrones(buffer),
+                        readSection(buffer, ReferenceDataCodec::readAvailability),
+                        readSection(buffer, ReferenceDataCodec::readServicePoint),
+                        readRestrictedAreas(buffer));
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt snapshot file", e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    private static void writeHeader(DataOutputStream out, UpstreamResource.Version<?> section) throws IOException {
+        writeString(out, section.etag());
+        writeString(out, section.lastModified());
+        out.writeInt(section.contentHash().length);
+        out.write(section.contentHash());
+    }
+
+    private record Header(String etag, String lastModified, byte[] contentHash) {
+
+        <T> UpstreamResource.Version<T> with(List<T> value) {
+            return new UpstreamResource.Version<>(etag, lastModified, contentHash, value);
+        }
+    }
+
+    private static Header readHeader(ByteBuffer in) {
+        String etag = readString(in);
+        String lastModified = readString(in);
+        byte[] contentHash = new byte[in.getInt()];
+        in.get(contentHash);
+        return new Header(etag, lastModified, contentHash);
+    }
+
+    private static <T> void writeSection(DataOutputStream out, UpstreamResource.Version<T> section,
+                                         Writer<T> writer) throws IOException {
+        writeHeader(out, section);
+        out.writeInt(section.value().size());
+        for (T item : section.value()) {
+            writer.write(out, item);
+        }
+    }
+
+    private static <T> UpstreamResource.Version<T> readSection(ByteBuffer in, Function<ByteBuffer, T> reader) {
+        Header header = readHeader(in);
+        List<T> items = readList(in, reader);
+        return header.with(Collections.unmodifiableList(items));
+    }
+
+    private static <T> List<T> readList(ByteBuffer in, Function<ByteBuffer, T> reader) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<T> items = new ArrayList<>(Math.min(count, in.remaining()));
+        for (int i = 0; i < count; i++) {
+            items.add(reader.apply(in));
+        }
+        return items;
+    }
+
+    private static <T> void writeList(DataOutputStream out, List<T> items, Writer<T> writer) throws IOException {
+        if (items == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(items.size());
+        for (T item : items) {
+            writer.write(out, item);
+        }
+    }
+
+    private static void writeDrones(DataOutputStream out, DroneColumns drones) throws IOException {
+        out.writeInt(drones.size());
+        for (int row = 0; row < drones.size(); row++) {
+            writeString(out, drones.id(row));
+            writeString(out, drones.name(row));
+            out.writeBoolean(drones.hasCapability(row));
+            if (drones.hasCapability(row)) {
+                out.writeByte(drones.cooling(row));
+                out.writeByte(drones.heating(row));
+                writeDouble(out, drones.capacity(row));
+                writeInt(out, drones.maxMoves(row), DroneColumns.NULL_INT);
+                writeDouble(out, drones.costPerMove(row));
+                writeDouble(out, drones.costInitial(row));
+                writeDouble(out, drones.costFinal(row));
+            }
+        }
+    }
+
+    private static UpstreamResource.Version<Drone> readDrones(ByteBuffer in) {
+        Header header = readHeader(in);
+        int count = in.getInt();
+        DroneColumns.Builder builder = new DroneColumns.Builder(Math.min(count, in.remaining()));
+        for (int row = 0; row < count; row++) {
+            builder.begin();
+            builder.id(readString(in));
+            builder.name(readString(in));
+            if (in.get() != 0) {
+                builder.capability();
+                builder.cooling(in.get());
+                builder.heating(in.get());
+                builder.capacity(readDouble(in));
+                builder.maxMoves(readInt(in, DroneColumns.NULL_INT));
+                builder.costPerMove(readDouble(in));
+                builder.costInitial(readDouble(in));
+                builder.costFinal(readDouble(in));
+            }
+            builder.end();
+        }
+        return header.with(builder.build().asList());
+    }
+
+    private static void writeAvailability(DataOutputStream out, DroneServicePointRequest availability) throws IOException {
+        writeInteger(out, availability.getServicePointId());
+        writeList(out, availability.getDrones(), (o, drone) -> {
+            writeString(o, drone.getId());
+            writeList(o, drone.getAvailable(), (o2, slot) -> {
+                o2.writeByte(slot.getDayOfWeek() == null ? -1 : slot.getDayOfWeek().ordinal());
+                o2.writeLong(slot.getFrom() == null ? -1 : slot.getFrom().toNanoOfDay());
+                o2.writeLong(slot.getUntil() == null ? -1 : slot.getUntil().toNanoOfDay());
+            });
+        });
+    }
+
+    private static DroneServicePointRequest readAvailability(ByteBuffer in) {
+        Integer servicePointId = readInteger(in);
+        List<DronesAtServicePoint> drones = readList(in, b -> new DronesAtServicePoint(readString(b),
+                readList(b, b2 -> {
+                    byte day = b2.get();
+                    long from = b2.getLong();
+                    long until = b2.getLong();
+                    return new DroneAvailabilityDetails(
+                            day < 0 ? null : DayOfWeek.values()[day],
+                            from < 0 ? null : LocalTime.ofNanoOfDay(from),
+                            until < 0 ? null : LocalTime.ofNanoOfDay(until));
+                })));
+        return new DroneServicePointRequest(servicePointId, drones);
+    }
+
+    private static void writeServicePoint(DataOutputStream out, ServicePoints servicePoint) throws IOException {
+        writeString(out, servicePoint.getName());
+        writeInteger(out, servicePoint.getId());
+        writeLngLat(out, servicePoint.getLocation());
+    }
+
+    private static ServicePoints readServicePoint(ByteBuffer in) {
+        return new ServicePoints(readString(in), readInteger(in), readLngLat(in));
+    }
+
+    private static void writeRestrictedAreas(DataOutputStream out, PolygonColumns areas) throws IOException {
+        out.writeInt(areas.size());
+        for (int polygon = 0; polygon < areas.size(); polygon++) {
+            writeString(out, areas.name(polygon));
+            writeInt(out, areas.id(polygon), PolygonColumns.NULL_INT);
+            out.writeBoolean(areas.hasLimits(polygon));
+            if (areas.hasLimits(polygon)) {
+                writeInt(out, areas.lower(polygon), PolygonColumns.NULL_INT);
+                writeInt(out, areas.upper(polygon), PolygonColumns.NULL_INT);
+            }
+            if (!areas.hasVertices(polygon)) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(areas.vertexEnd(polygon) - areas.vertexStart(polygon));
+            for (int v = areas.vertexStart(polygon); v < areas.vertexEnd(polygon); v++) {
+                boolean present = !(Double.isNaN(areas.lng(v)) && Double.isNaN(areas.lat(v)));
+                out.writeBoolean(present);
+                if (present) {
+                    writeDouble(out, areas.lng(v));
+                    writeDouble(out, areas.lat(v));
+                }
+            }
+        }
+    }
+
+    private static UpstreamResource.Version<RestrictedArea> readRestrictedAreas(ByteBuffer in) {
+        Header header = readHeader(in);
+        int count = in.getInt();
+        PolygonColumns.Builder builder = new PolygonColumns.Builder(Math.min(count, in.remaining()), 0);
+        for (int polygon = 0; polygon < count; polygon++) {
+            builder.begin();
+            builder.name(readString(in));
+            builder.id(readInt(in, PolygonColumns.NULL_INT));
+            if (in.get() != 0) {
+                builder.limits(readInt(in, PolygonColumns.NULL_INT), readInt(in, PolygonColumns.NULL_INT));
+            }
+            int vertices = in.getInt();
+            if (vertices >= 0) {
+                builder.vertices();
+                for (int v = 0; v < vertices; v++) {
+                    if (in.get() != 0) {
+                        builder.vertex(readDouble(in), readDouble(in));
+                    } else {
+                        builder.vertex(Double.NaN, Double.NaN);
+                    }
+                }
+            }
+            builder.end();
+        }
+        return header.with(builder.build().asList());
+    }
+
+    private static void writeLngLat(DataOutputStream out, LngLat position) throws IOException {
+        out.writeBoolean(position != null);
+        if (position != null) {
+            writeDouble(out, position.getLongitude());
+            writeDouble(out, position.getLatitude());
+        }
+    }
+
+    private static LngLat readLngLat(ByteBuffer in) {
+        return in.get() != 0 ? new LngLat(readNullableDouble(in), readNullableDouble(in)) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(ByteBuffer in) {
+        return in.get() != 0 ? in.getInt() : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readNullableDouble(ByteBuffer in) {
+        return in.get() != 0 ? in.getDouble() : null;
+    }
+
+    /**
+     * Nullable double in the same layout as {@link #writeDouble(DataOutputStream, Double)}, NaN meaning absent
+     */
+    private static void writeDouble(DataOutputStream out, double value) throws IOException {
+        out.writeBoolean(!Double.isNaN(value));
+        if (!Double.isNaN(value)) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double readDouble(ByteBuffer in) {
+        return in.get() != 0 ? in.getDouble() : Double.NaN;
+    }
+
+    /**
+     * Nullable int in the same layout as {@link #writeInteger(DataOutputStream, Integer)}
+     */
+    private static void writeInt(DataOutputStream out, int value, int nullValue) throws IOException {
+        out.writeBoolean(value != nullValue);
+        if (value != nullValue) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int readInt(ByteBuffer in, int nullValue) {
+        return in.get() != 0 ? in.getInt() : nullValue;
+    }
+}
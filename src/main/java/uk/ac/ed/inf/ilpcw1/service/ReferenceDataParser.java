@@ -0,0 +1,242 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import uk.ac.ed.inf.ilpcw1.data.DroneColumns;
+import uk.ac.ed.inf.ilpcw1.data.PolygonColumns;
+
+import java.io.IOException;
+
+/**
+ * Streaming parsers for the two large ILP payloads.
+ * Drones and restricted areas are read token by token straight into {@link DroneColumns} and
+ * {@link PolygonColumns}, so a refresh allocates a handful of primitive arrays instead of one
+ * bean (plus boxed fields) per drone, capability and vertex. Unknown fields are skipped and
+ * scalar coercions follow Jackson's defaults (numbers given as strings, etc.); null array
+ * elements are dropped.
+ */
+final class ReferenceDataParser {
+
+    private ReferenceDataParser() {
+    }
+
+    /**
+     * Parse a {@code /drones} response body
+     * @param factory JSON factory to create the parser from
+     * @param body    raw response body
+     * @return the fleet in columnar form
+     */
+    static DroneColumns parseDrones(JsonFactory factory, byte[] body) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            if (!startArray(parser)) {
+                return DroneColumns.empty();
+            }
+            DroneColumns.Builder builder = new DroneColumns.Builder(body.length / 200);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                expect(parser, token, JsonToken.START_OBJECT);
+                builder.begin();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "id" -> builder.id(text(parser));
+                        case "name" -> builder.name(text(parser));
+                        case "capability" -> {
+                            if (value == JsonToken.VALUE_NULL) {
+                                break;
+                            }
+                            expect(parser, value, JsonToken.START_OBJECT);
+                            builder.capability();
+                            parseCapability(parser, builder);
+                        }
+                        default -> parser.skipChildren();
+                    }
+                }
+                builder.end();
+            }
+            return builder.build();
+        }
+    }
+
+    private static void parseCapability(JsonParser parser, DroneColumns.Builder builder) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "cooling" -> builder.cooling(bool(parser));
+                case "heating" -> builder.heating(bool(parser));
+                case "capacity" -> builder.capacity(number(parser));
+                case "maxMoves" -> builder.maxMoves(integer(parser, DroneColumns.NULL_INT));
+                case "costPerMove" -> builder.costPerMove(number(parser));
+                case "costInitial" -> builder.costInitial(number(parser));
+                case "costFinal" -> builder.costFinal(number(parser));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Parse a {@code /restricted-areas} response body
+     * @param factory JSON factory to create the parser from
+     * @param body    raw response body
+     * @return the restricted areas in columnar form
+     */
+    static PolygonColumns parseRestrictedAreas(JsonFactory factory, byte[] body) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            if (!startArray(parser)) {
+                return PolygonColumns.empty();
+            }
+            PolygonColumns.Builder builder = new PolygonColumns.Builder(body.length / 400, body.length / 40);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                expect(parser, token, JsonToken.START_OBJECT);
+                builder.begin();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "name" -> builder.name(text(parser));
+                        case "id" -> builder.id(integer(parser, PolygonColumns.NULL_INT));
+                        case "limits" -> {
+                            if (value == JsonToken.VALUE_NULL) {
+                                break;
+                            }
+                            expect(parser, value, JsonToken.START_OBJECT);
+                            parseLimits(parser, builder);
+                        }
+                        case "vertices" -> {
+                            if (value == JsonToken.VALUE_NULL) {
+                                break;
+                            }
+                            expect(parser, value, JsonToken.START_ARRAY);
+                            builder.vertices();
+                            parseVertices(parser, builder);
+                        }
+                        default -> parser.skipChildren();
+                    }
+                }
+                builder.end();
+            }
+            return builder.build();
+        }
+    }
+
+    private static void parseLimits(JsonParser parser, PolygonColumns.Builder builder) throws IOException {
+        int lower = PolygonColumns.NULL_INT;
+        int upper = PolygonColumns.NULL_INT;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "lower" -> lower = integer(parser, PolygonColumns.NULL_INT);
+                case "upper" -> upper = integer(parser, PolygonColumns.NULL_INT);
+                default -> parser.skipChildren();
+            }
+        }
+        builder.limits(lower, upper);
+    }
+
+    private static void parseVertices(JsonParser parser, PolygonColumns.Builder builder) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                builder.vertex(Double.NaN, Double.NaN);
+                continue;
+            }
+            expect(parser, token, JsonToken.START_OBJECT);
+            double lng = Double.NaN;
+            double lat = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "lng" -> lng = number(parser);
+                    case "lat" -> lat = number(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            builder.vertex(lng, lat);
+        }
+    }
+
+    /**
+     * @return true if the body is an array, false if it is JSON null or empty
+     */
+    private static boolean startArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        return true;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a string but found " + token);
+        }
+        return parser.getValueAsString();
+    }
+
+    private static double number(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return Double.NaN;
+        }
+        if (token.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "Not a number: " + parser.getText(), e);
+            }
+        }
+        throw new JsonParseException(parser, "Expected a number but found " + token);
+    }
+
+    private static int integer(JsonParser parser, int nullValue) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return nullValue;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_STRING) {
+            return (int) number(parser);
+        }
+        throw new JsonParseException(parser, "Expected an integer but found " + token);
+    }
+
+    private static byte bool(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return DroneColumns.NULL_BOOLEAN;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a boolean but found " + token);
+        }
+        return (byte) (parser.getValueAsBoolean() ? 1 : 0);
+    }
+}
@@ -0,0 +1,44 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Band of a fixed half-width around an any-angle route (a polyline); lattice nodes outside it
+ * are not opened, so the search stays near the route instead of flooding the open areas on
+ * either side of it.
+ */
+final class RouteCorridor {
+
+    private final double[] lng;
+    private final double[] lat;
+    private final double halfWidthSquared;
+
+    /**
+     * @param lng       route corner longitudes, in order
+     * @param lat       route corner latitudes, in order
+     * @param halfWidth largest distance in degrees from the route a node may be
+     */
+    RouteCorridor(double[] lng, double[] lat, double halfWidth) {
+        this.lng = lng;
+        this.lat = lat;
+        this.halfWidthSquared = halfWidth * halfWidth;
+    }
+
+    boolean contains(double pointLng, double pointLat) {
+        for (int i = 0; i + 1 < lng.length; i++) {
+            if (squaredDistanceToSegment(i, pointLng, pointLat) <= halfWidthSquared) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double squaredDistanceToSegment(int i, double pointLng, double pointLat) {
+        double dx = lng[i + 1] - lng[i];
+        double dy = lat[i + 1] - lat[i];
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0
+                : Math.max(0, Math.min(1, ((pointLng - lng[i]) * dx + (pointLat - lat[i]) * dy) / lengthSquared));
+        double offLng = pointLng - (lng[i] + t * dx);
+        double offLat = pointLat - (lat[i] + t * dy);
+        return offLng * offLng + offLat * offLat;
+    }
+}
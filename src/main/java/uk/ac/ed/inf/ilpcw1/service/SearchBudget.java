@@ -0,0 +1,35 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.time.Duration;
+
+/**
+ * Limits on one path search, chosen per call so latency-sensitive callers can trade a few
+ * moves for a bounded response time.
+ * <p>
+ * With an initial weight above 1 the search is anytime (ARA*): it first finds a path with the
+ * heuristic inflated by that weight, which takes far fewer expansions, then lowers the weight
+ * step by step and improves the path, reusing earlier work, until the weight reaches 1 or the
+ * budget runs out. The best path found so far is returned together with its suboptimality bound.
+ *
+ * @param maxExpansions most nodes expanded, over all improvement rounds
+ * @param timeLimit     wall-clock limit on the search, or {@link Duration#ZERO} for none
+ * @param initialWeight heuristic weight of the first round; 1 is a single plain A* search
+ */
+public record SearchBudget(int maxExpansions, Duration timeLimit, double initialWeight) {
+
+    public SearchBudget {
+        if (maxExpansions <= 0) {
+            throw new IllegalArgumentException("maxExpansions must be positive: " + maxExpansions);
+        }
+        if (timeLimit == null || timeLimit.isNegative()) {
+            throw new IllegalArgumentException("timeLimit must be zero or positive: " + timeLimit);
+        }
+        if (!(initialWeight >= 1)) {
+            throw new IllegalArgumentException("initialWeight must be at least 1: " + initialWeight);
+        }
+    }
+
+    boolean hasTimeLimit() {
+        return !timeLimit.isZero();
+    }
+}
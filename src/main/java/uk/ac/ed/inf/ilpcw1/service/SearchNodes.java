@@ -0,0 +1,141 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.util.Arrays;
+
+/**
+ * Node storage for the A* search as parallel primitive arrays indexed by node id:
+ * lattice position (see {@link MoveLattice}), cost so far (g), heuristic estimate (h), parent id,
+ * direction of the move from the parent and the search iteration in which the node was last
+ * expanded. Replaces one heap-allocated node object per expansion.
+ */
+final class SearchNodes {
+
+    static final int NO_PARENT = -1;
+    static final int NO_HEADING = -1;
+
+    private int size;
+    private long[] x;
+    private long[] y;
+    private double[] g;
+    private double[] h;
+    private int[] parent;
+    private byte[] heading;
+    private int[] closedIn;
+
+    SearchNodes(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        x = new long[capacity];
+        y = new long[capacity];
+        g = new double[capacity];
+        h = new double[capacity];
+        parent = new int[capacity];
+        heading = new byte[capacity];
+        closedIn = new int[capacity];
+    }
+
+    /**
+     * @return the id of the new root node
+     */
+    int add(long nodeX, long nodeY, double estimate) {
+        return add(nodeX, nodeY, NO_PARENT, NO_HEADING, 0, estimate);
+    }
+
+    /**
+     * @param direction {@link MoveLattice} direction of the move from the parent
+     * @return the id of the new node
+     */
+    int add(long nodeX, long nodeY, int parentId, int direction, double cost, double estimate) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            g = Arrays.copyOf(g, capacity);
+            h = Arrays.copyOf(h, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            heading = Arrays.copyOf(heading, capacity);
+            closedIn = Arrays.copyOf(closedIn, capacity);
+        }
+        x[size] = nodeX;
+        y[size] = nodeY;
+        parent[size] = parentId;
+        heading[size] = (byte) direction;
+        g[size] = cost;
+        h[size] = estimate;
+        closedIn[size] = 0;
+        return size++;
+    }
+
+    /**
+     * Record a cheaper way to reach an existing node
+     */
+    void relax(int id, int parentId, int direction, double cost) {
+        parent[id] = parentId;
+        heading[id] = (byte) direction;
+        g[id] = cost;
+    }
+
+    /**
+     * Mark the node expanded in the given search iteration (iterations are numbered from 1)
+     */
+    void close(int id, int iteration) {
+        closedIn[id] = iteration;
+    }
+
+    boolean isClosedIn(int id, int iteration) {
+        return closedIn[id] == iteration;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long x(int id) {
+        return x[id];
+    }
+
+    long y(int id) {
+        return y[id];
+    }
+
+    double g(int id) {
+        return g[id];
+    }
+
+    double h(int id) {
+        return h[id];
+    }
+
+    int parent(int id) {
+        return parent[id];
+    }
+
+    /**
+     * @return direction of the move from the parent, or {@link #NO_HEADING} at a root
+     */
+    int heading(int id) {
+        return heading[id];
+    }
+
+    /**
+     * @return lattice offsets (x, y interleaved) of the nodes from the root to this one
+     */
+    long[] offsetsTo(int id) {
+        int points = 0;
+        for (int node = id; node != NO_PARENT; node = parent[node]) {
+            points++;
+        }
+        long[] offsets = new long[2 * points];
+        for (int node = id, i = offsets.length - 2; node != NO_PARENT; node = parent[node], i -= 2) {
+            offsets[i] = x[node];
+            offsets[i + 1] = y[node];
+        }
+        return offsets;
+    }
+
+    /**
+     * Forget every node; capacity is kept for reuse
+     */
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+/**
+ * Result of one lattice search of a leg
+ *
+ * @param offsets            lattice offsets (x, y interleaved) of the best path's points from
+ *                           the start, or null if no path was found
+ * @param suboptimalityBound see {@link PathResult#suboptimalityBound()}
+ * @param expansions         nodes expanded
+ * @param complete           false if the budget stopped the search
+ * @param timedOut           true if the wall-clock limit stopped the search
+ */
+record SearchOutcome(long[] offsets, double suboptimalityBound, int expansions, boolean complete, boolean timedOut) {
+
+    boolean hasPath() {
+        return offsets != null;
+    }
+
+    SearchOutcome afterEarlier(int earlierExpansions) {
+        return new SearchOutcome(offsets, suboptimalityBound, expansions + earlierExpansions, complete, timedOut);
+    }
+}
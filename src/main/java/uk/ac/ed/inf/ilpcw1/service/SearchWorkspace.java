@@ -0,0 +1,87 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Working storage of one path search: node arrays, the visited-cell map, the open heap and the
+ * nodes held back for the next round of an anytime search.
+ * A workspace keeps the capacity it grew to, so searches borrow one from a {@link Pool} and
+ * give it back instead of allocating (and discarding) these structures for every leg.
+ * Resetting is constant time apart from the entries still on the open heap.
+ */
+final class SearchWorkspace {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final SearchNodes nodes = new SearchNodes(INITIAL_CAPACITY);
+    private final LongIntHashMap visited = new LongIntHashMap(INITIAL_CAPACITY);
+    private final IndexedMinHeap open = new IndexedMinHeap(INITIAL_CAPACITY);
+    private final IndexedMinHeap inconsistent = new IndexedMinHeap(INITIAL_CAPACITY);
+
+    SearchNodes nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return lattice cell key to node id
+     */
+    LongIntHashMap visited() {
+        return visited;
+    }
+
+    IndexedMinHeap open() {
+        return open;
+    }
+
+    /**
+     * @return nodes whose cost improved after they were expanded in the current round
+     */
+    IndexedMinHeap inconsistent() {
+        return inconsistent;
+    }
+
+    /**
+     * Forget the previous search, keeping all capacity
+     */
+    void reset() {
+        nodes.clear();
+        visited.clear();
+        open.clear();
+        inconsistent.clear();
+    }
+
+    /**
+     * Bounded pool of idle workspaces shared by concurrent searches; when it is empty a new
+     * workspace is created and when it is full a returned one is left to the garbage collector
+     */
+    static final class Pool {
+
+        private final ArrayBlockingQueue<SearchWorkspace> idle;
+
+        /**
+         * @param maxIdle most idle workspaces kept; zero disables pooling
+         */
+        Pool(int maxIdle) {
+            this.idle = maxIdle > 0 ? new ArrayBlockingQueue<>(maxIdle) : null;
+        }
+
+        /**
+         * @return a reset workspace for the caller's exclusive use until {@link #release}
+         */
+        SearchWorkspace acquire() {
+            SearchWorkspace workspace = idle != null ? idle.poll() : null;
+            return workspace != null ? workspace : new SearchWorkspace();
+        }
+
+        void release(SearchWorkspace workspace) {
+            if (idle != null) {
+                workspace.reset();
+                idle.offer(workspace);
+            }
+        }
+
+        int idleCount() {
+            return idle != null ? idle.size() : 0;
+        }
+    }
+}
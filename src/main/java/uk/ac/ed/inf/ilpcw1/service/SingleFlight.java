@@ -0,0 +1,87 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one execution.
+ * The first caller runs the supplier; callers arriving while it is in flight wait for and
+ * share its result (or its failure). Optionally a completed result is reused for a short
+ * freshness window before the supplier is run again.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+class SingleFlight<K, V> {
+
+    private record Completed<V>(V value, long completedAtNanos) {
+    }
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, Completed<V>> recent = new ConcurrentHashMap<>();
+    private final long freshnessNanos;
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param freshnessWindow how long a completed result is shared with later callers; zero disables reuse
+     */
+    SingleFlight(Duration freshnessWindow) {
+        this.freshnessNanos = freshnessWindow.toNanos();
+    }
+
+    /**
+     * Run the supplier for the key, or join the execution already in flight for it
+     * @param key    identifies the work being coalesced
+     * @param action the work to run if no call for the key is in flight
+     * @return the shared result
+     */
+    V execute(K key, Supplier<V> action) {
+        if (freshnessNanos > 0) {
+            Completed<V> completed = recent.get(key);
+            if (completed != null && System.nanoTime() - completed.completedAtNanos() < freshnessNanos) {
+                coalesced.incrementAndGet();
+                return completed.value();
+            }
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            V value = action.get();
+            if (freshnessNanos > 0) {
+                recent.put(key, new Completed<>(value, System.nanoTime()));
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * @return number of calls that were served by another caller's execution
+     */
+    long coalescedCount() {
+        return coalesced.get();
+    }
+}
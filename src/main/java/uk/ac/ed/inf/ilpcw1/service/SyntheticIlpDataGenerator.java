@@ -0,0 +1,174 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import uk.ac.ed.inf.ilpcw1.config.StandInProperties;
+import uk.ac.ed.inf.ilpcw1.data.Drone;
+import uk.ac.ed.inf.ilpcw1.data.DroneAvailabilityDetails;
+import uk.ac.ed.inf.ilpcw1.data.DroneCapability;
+import uk.ac.ed.inf.ilpcw1.data.DroneServicePointRequest;
+import uk.ac.ed.inf.ilpcw1.data.DronesAtServicePoint;
+import uk.ac.ed.inf.ilpcw1.data.Limits;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+import uk.ac.ed.inf.ilpcw1.data.ServicePoints;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generator of ILP reference data in the shape served by the real ILP REST service.
+ * Service points are scattered over a square around the configured centre, each drone is
+ * homed at one service point with random per-day availability windows, and restricted areas
+ * are closed star-shaped polygons that never cover a service point.
+ */
+public class SyntheticIlpDataGenerator {
+
+    private static final double[] CAPACITIES = {4.0, 8.0, 12.0, 20.0};
+    private static final double MIN_AREA_RADIUS = 0.0004;
+    private static final double MAX_AREA_RADIUS = 0.002;
+    private static final double SERVICE_POINT_CLEARANCE = 0.0005;
+    private static final int MAX_PLACEMENT_ATTEMPTS = 1000;
+
+    /**
+     * Generated data set
+     */
+    public record Dataset(List<Drone> drones,
+                          List<DroneServicePointRequest> availability,
+                          List<ServicePoints> servicePoints,
+                          List<RestrictedArea> restrictedAreas) {
+    }
+
+    private final StandInProperties properties;
+
+    public SyntheticIlpDataGenerator(StandInProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return a data set determined entirely by the configured seed and sizes
+     */
+    public Dataset generate() {
+        Random random = new Random(properties.getSeed());
+        List<ServicePoints> servicePoints = generateServicePoints(random);
+        List<Drone> drones = generateDrones(random);
+        List<DroneServicePointRequest> availability = generateAvailability(random, drones, servicePoints);
+        List<RestrictedArea> restrictedAreas = generateRestrictedAreas(random, servicePoints);
+        return new Dataset(drones, availability, servicePoints, restrictedAreas);
+    }
+
+    private List<ServicePoints> generateServicePoints(Random random) {
+        List<ServicePoints> servicePoints = new ArrayList<>(properties.getServicePoints());
+        for (int i = 1; i <= properties.getServicePoints(); i++) {
+            servicePoints.add(new ServicePoints("Service Point " + i, i, randomPoint(random)));
+        }
+        return servicePoints;
+    }
+
+    private List<Drone> generateDrones(Random random) {
+        List<Drone> drones = new ArrayList<>(properties.getDrones());
+        for (int i = 1; i <= properties.getDrones(); i++) {
+            DroneCapability capability = new DroneCapability(
+                    random.nextBoolean(),
+                    random.nextBoolean(),
+                    CAPACITIES[random.nextInt(CAPACITIES.length)],
+                    1000 + 250 * random.nextInt(9),
+                    round(0.01 + random.nextDouble() * 0.04, 3),
+                    round(1.0 + random.nextDouble() * 4.0, 2),
+                    round(1.0 + random.nextDouble() * 6.0, 2));
+            drones.add(new Drone(String.valueOf(i), "Drone " + i, capability));
+        }
+        return drones;
+    }
+
+    private List<DroneServicePointRequest> generateAvailability(Random random, List<Drone> drones,
+                                                                List<ServicePoints> servicePoints) {
+        if (servicePoints.isEmpty()) {
+            return List.of();
+        }
+        List<List<DronesAtServicePoint>> byServicePoint = new ArrayList<>();
+        for (int i = 0; i < servicePoints.size(); i++) {
+            byServicePoint.add(new ArrayList<>());
+        }
+        for (Drone drone : drones) {
+            List<DroneAvailabilityDetails> windows = new ArrayList<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (random.nextDouble() < properties.getAvailabilityDensity()) {
+                    int fromHour = random.nextInt(12);
+                    int untilHour = fromHour + 6 + random.nextInt(24 - fromHour - 6);
+                    windows.add(new DroneAvailabilityDetails(day, LocalTime.of(fromHour, 0), LocalTime.of(untilHour, 0)));
+                }
+            }
+            byServicePoint.get(random.nextInt(servicePoints.size()))
+                    .add(new DronesAtServicePoint(drone.getId(), windows));
+        }
+
+        List<DroneServicePointRequest> availability = new ArrayList<>(servicePoints.size());
+        for (int i = 0; i < servicePoints.size(); i++) {
+            availability.add(new DroneServicePointRequest(servicePoints.get(i).getId(), byServicePoint.get(i)));
+        }
+        return availability;
+    }
+
+    private List<RestrictedArea> generateRestrictedAreas(Random random, List<ServicePoints> servicePoints) {
+        int vertices = Math.max(3, properties.getVerticesPerArea());
+        List<RestrictedArea> areas = new ArrayList<>(properties.getRestrictedAreas());
+        for (int i = 1; i <= properties.getRestrictedAreas(); i++) {
+            for (int attempt = 0; attempt < MAX_PLACEMENT_ATTEMPTS; attempt++) {
+                LngLat centre = randomPoint(random);
+                double radius = MIN_AREA_RADIUS + random.nextDouble() * (MAX_AREA_RADIUS - MIN_AREA_RADIUS);
+                if (clearOfServicePoints(centre, radius, servicePoints)) {
+                    areas.add(new RestrictedArea("Restricted Area " + i, i, new Limits(0, -1),
+                            starPolygon(random, centre, radius, vertices)));
+                    break;
+                }
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * Closed polygon whose vertices are at increasing angles around the centre, each at a
+     * random distance between half and the full radius
+     */
+    private static List<LngLat> starPolygon(Random random, LngLat centre, double radius, int vertices) {
+        double[] angles = new double[vertices];
+        for (int v = 0; v < vertices; v++) {
+            angles[v] = (v + random.nextDouble() * 0.8) * (2 * Math.PI / vertices);
+        }
+        Arrays.sort(angles);
+
+        List<LngLat> ring = new ArrayList<>(vertices + 1);
+        for (double angle : angles) {
+            double r = radius * (0.5 + random.nextDouble() * 0.5);
+            ring.add(new LngLat(round(centre.getLongitude() + r * Math.cos(angle), 6),
+                    round(centre.getLatitude() + r * Math.sin(angle), 6)));
+        }
+        ring.add(new LngLat(ring.get(0).getLongitude(), ring.get(0).getLatitude()));
+        return ring;
+    }
+
+    private static boolean clearOfServicePoints(LngLat centre, double radius, List<ServicePoints> servicePoints) {
+        for (ServicePoints sp : servicePoints) {
+            double dLng = sp.getLocation().getLongitude() - centre.getLongitude();
+            double dLat = sp.getLocation().getLatitude() - centre.getLatitude();
+            if (Math.sqrt(dLng * dLng + dLat * dLat) < radius + SERVICE_POINT_CLEARANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private LngLat randomPoint(Random random) {
+        double half = properties.getRadius();
+        return new LngLat(round(properties.getCentreLng() + (random.nextDouble() * 2 - 1) * half, 6),
+                round(properties.getCentreLat() + (random.nextDouble() * 2 - 1) * half, 6));
+    }
+
+    private static double round(double value, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
+    }
+}
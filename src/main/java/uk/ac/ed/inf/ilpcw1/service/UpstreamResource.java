@@ -0,0 +1,148 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One ILP REST resource together with the validators of the last version fetched.
+ * The ETag / Last-Modified values are replayed as conditional request headers and the
+ * content hash catches unchanged bodies from servers that do not send validators.
+ * Each resource also carries its own circuit breaker and a window of recent response
+ * latencies used to decide when a slow request should be hedged.
+ *
+ * @param <T> element type of the JSON array served by the resource
+ */
+class UpstreamResource<T> {
+
+    /**
+     * Last successfully fetched version of a resource
+     *
+     * @param etag         ETag response header, or null
+     * @param lastModified Last-Modified response header, or null
+     * @param contentHash  SHA-256 of the response body
+     * @param value        parsed body
+     */
+    record Version<T>(String etag, String lastModified, byte[] contentHash, List<T> value) {
+    }
+
+    private static final int LATENCY_WINDOW = 64;
+
+    /**
+     * Turns a response body into the resource's list
+     */
+    @FunctionalInterface
+    interface BodyParser<T> {
+        List<T> parse(byte[] body) throws IOException;
+    }
+
+    private final String name;
+    private final String path;
+    private final BodyParser<T> parser;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicLong unchangedCount = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+    // attempts up to this one have had their outcome given to the circuit breaker
+    private final AtomicLong settledAttempt = new AtomicLong();
+    private final long[] latencyNanos = new long[LATENCY_WINDOW];
+    private long latencySamples;
+    private volatile Version<T> current;
+
+    UpstreamResource(String name, String path, BodyParser<T> parser, CircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.path = path;
+        this.parser = parser;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    String name() {
+        return name;
+    }
+
+    String path() {
+        return path;
+    }
+
+    BodyParser<T> parser() {
+        return parser;
+    }
+
+    CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    Version<T> current() {
+        return current;
+    }
+
+    void update(Version<T> version) {
+        this.current = version;
+    }
+
+    /**
+     * Start a call to the upstream, whose outcome is later given to the circuit breaker once
+     * @return the attempt's number
+     */
+    long beginAttempt() {
+        return attempts.incrementAndGet();
+    }
+
+    /**
+     * Give an attempt's outcome to the circuit breaker, unless it has been given already,
+     * e.g. by a caller that stopped waiting for the attempt
+     */
+    void settleAttempt(long attempt, boolean succeeded) {
+        long settled = settledAttempt.get();
+        while (settled < attempt) {
+            if (settledAttempt.compareAndSet(settled, attempt)) {
+                if (succeeded) {
+                    circuitBreaker.recordSuccess();
+                } else {
+                    circuitBreaker.recordFailure();
+                }
+                return;
+            }
+            settled = settledAttempt.get();
+        }
+    }
+
+    /**
+     * Count the latest attempt as failed, if its outcome is not known yet
+     */
+    void failLatestAttempt() {
+        settleAttempt(attempts.get(), false);
+    }
+
+    void recordUnchanged() {
+        unchangedCount.incrementAndGet();
+    }
+
+    /**
+     * @return number of fetches that found the resource unchanged and skipped parsing
+     */
+    long unchangedCount() {
+        return unchangedCount.get();
+    }
+
+    synchronized void recordLatency(long nanos) {
+        latencyNanos[(int) (latencySamples++ % LATENCY_WINDOW)] = nanos;
+    }
+
+    /**
+     * Percentile of the recent response latencies
+     * @param percentile value in (0, 1], e.g. 0.95
+     * @param minSamples fewest samples needed for the estimate to be trusted
+     * @return the latency in nanoseconds, or -1 while there are fewer than minSamples samples
+     */
+    synchronized long latencyPercentileNanos(double percentile, int minSamples) {
+        int samples = (int) Math.min(latencySamples, LATENCY_WINDOW);
+        if (samples == 0 || samples < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencyNanos, samples);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * samples) - 1;
+        return sorted[Math.max(0, Math.min(samples - 1, rank))];
+    }
+}
@@ -0,0 +1,268 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import java.util.Arrays;
+
+/**
+ * Visibility graph over the no-fly-zone vertices: two vertices are joined when the straight
+ * line between them crosses no zone edge and does not run through a zone's interior. Shortest
+ * paths in this graph give the shortest obstacle-avoiding (any-angle) distance, which bounds
+ * from below the length of any lattice path around the zones.
+ * <p>
+ * Every doubtful case is resolved towards "visible", which can only shorten the distances and
+ * so keeps them valid lower bounds.
+ */
+final class VisibilityGraph {
+
+    // zones with more vertices than this get no graph: its build grows with the square of the count
+    static final int MAX_VERTICES = 4000;
+    // graphs up to this size take well under a tenth of a second, so are built with the zones
+    static final int PREPARED_VERTICES = 150;
+
+    private final PreparedObstacles obstacles;
+    private final double[] lng;
+    private final double[] lat;
+    // neighbours of vertex v are adjacent[adjacencyStart[v] .. adjacencyStart[v + 1])
+    private final int[] adjacencyStart;
+    private final int[] adjacent;
+    private final double[] length;
+
+    private VisibilityGraph(PreparedObstacles obstacles, double[] lng, double[] lat,
+                            int[] adjacencyStart, int[] adjacent, double[] length) {
+        this.obstacles = obstacles;
+        this.lng = lng;
+        this.lat = lat;
+        this.adjacencyStart = adjacencyStart;
+        this.adjacent = adjacent;
+        this.length = length;
+    }
+
+    /**
+     * Build the graph for prepared obstacles
+     * @param obstacles the zones
+     * @return the graph, or null if the zones are replaced by a newer version while it is built
+     */
+    static VisibilityGraph build(PreparedObstacles obstacles) {
+        // one graph vertex per zone vertex, skipping repeats such as a closing vertex equal to the first
+        int[] ids = new int[obstacles.vertexCount()];
+        int count = 0;
+        for (int v = 0; v < obstacles.vertexCount(); v++) {
+            int w = obstacles.nextVertex(v);
+            double vLng = obstacles.vertexLng(v);
+            double vLat = obstacles.vertexLat(v);
+            boolean repeated = w != v && vLng == obstacles.vertexLng(w) && vLat == obstacles.vertexLat(w);
+            if (!repeated && !Double.isNaN(vLng) && !Double.isNaN(vLat)) {
+                ids[count++] = v;
+            }
+        }
+        double[] lng = new double[count];
+        double[] lat = new double[count];
+        for (int i = 0; i < count; i++) {
+            lng[i] = obstacles.vertexLng(ids[i]);
+            lat[i] = obstacles.vertexLat(ids[i]);
+        }
+
+        // visible pairs (i, j), i < j, at [2k] and [2k + 1]: the graph is sparse, so no count-by-count matrix
+        int[] degree = new int[count];
+        int[] pairs = new int[64];
+        int pairCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (obstacles.isRetired()) {
+                return null;
+            }
+            for (int j = i + 1; j < count; j++) {
+                if (isClear(obstacles, lng[i], lat[i], lng[j], lat[j])) {
+                    if (2 * pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+                    pairs[2 * pairCount] = i;
+                    pairs[2 * pairCount + 1] = j;
+                    pairCount++;
+                    degree[i]++;
+                    degree[j]++;
+                }
+            }
+        }
+        int[] adjacencyStart = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            adjacencyStart[i + 1] = adjacencyStart[i] + degree[i];
+        }
+        int[] adjacent = new int[adjacencyStart[count]];
+        double[] length = new double[adjacent.length];
+        int[] fill = Arrays.copyOf(adjacencyStart, count);
+        for (int k = 0; k < pairCount; k++) {
+            int i = pairs[2 * k];
+            int j = pairs[2 * k + 1];
+            double d = Math.hypot(lng[j] - lng[i], lat[j] - lat[i]);
+            adjacent[fill[i]] = j;
+            length[fill[i]++] = d;
+            adjacent[fill[j]] = i;
+            length[fill[j]++] = d;
+        }
+        return new VisibilityGraph(obstacles, lng, lat, adjacencyStart, adjacent, length);
+    }
+
+    private static boolean isClear(PreparedObstacles obstacles, double fromLng, double fromLat, double toLng, double toLat) {
+        return obstacles.sees(fromLng, fromLat, toLng, toLat)
+                && !obstacles.isStrictlyInsideAnyZone((fromLng + toLng) / 2, (fromLat + toLat) / 2);
+    }
+
+    int size() {
+        return lng.length;
+    }
+
+    double vertexLng(int vertex) {
+        return lng[vertex];
+    }
+
+    double vertexLat(int vertex) {
+        return lat[vertex];
+    }
+
+    /**
+     * Shortest obstacle-avoiding distances from every vertex to a goal (Dijkstra from the goal)
+     * @return distances to the goal, usable as a lower bound from any point
+     */
+    GoalDistances distancesTo(double goalLng, double goalLat) {
+        return distances(goalLng, goalLat, 0);
+    }
+
+    /**
+     * Lower bounds on the obstacle-avoiding distances from every vertex to the nearest point
+     * within a distance of a goal: a vertex not cut off from all those points by one zone edge
+     * (see {@link PreparedObstacles#hidesDisc}) is taken to reach them straight
+     * @return distances to the goal's disc, usable as a lower bound from any point
+     */
+    GoalDistances distancesWithin(double goalLng, double goalLat, double radius) {
+        return distances(goalLng, goalLat, radius);
+    }
+
+    private GoalDistances distances(double goalLng, double goalLat, double radius) {
+        int count = lng.length;
+        double[] distance = new double[count];
+        int[] towards = new int[count];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(towards, GoalDistances.GOAL);
+        IndexedMinHeap open = new IndexedMinHeap(count);
+        for (int v = 0; v < count; v++) {
+            boolean reached = radius == 0
+                    ? isClear(obstacles, lng[v], lat[v], goalLng, goalLat)
+                    : !obstacles.hidesDisc(lng[v], lat[v], goalLng, goalLat, radius);
+            if (reached) {
+                distance[v] = Math.max(0, Math.hypot(goalLng - lng[v], goalLat - lat[v]) - radius);
+                open.insert(v, distance[v]);
+            }
+        }
+        while (!open.isEmpty()) {
+            int v = open.pollMin();
+            for (int i = adjacencyStart[v]; i < adjacencyStart[v + 1]; i++) {
+                int w = adjacent[i];
+                double through = distance[v] + length[i];
+                if (through < distance[w]) {
+                    distance[w] = through;
+                    towards[w] = v;
+                    open.insertOrDecrease(w, through);
+                }
+            }
+        }
+        return new GoalDistances(goalLng, goalLat, distance, towards);
+    }
+
+    /**
+     * Obstacle-avoiding distances from the graph vertices to one goal
+     */
+    final class GoalDistances {
+
+        static final int GOAL = -1;
+
+        private final double goalLng;
+        private final double goalLat;
+        private final double[] distance;
+        // next vertex on the shortest route to the goal, or GOAL
+        private final int[] towards;
+
+        private GoalDistances(double goalLng, double goalLat, double[] distance, int[] towards) {
+            this.goalLng = goalLng;
+            this.goalLat = goalLat;
+            this.distance = distance;
+            this.towards = towards;
+        }
+
+        /**
+         * @return obstacle-avoiding distance from a graph vertex to the goal, infinite if none
+         */
+        double fromVertex(int vertex) {
+            return distance[vertex];
+        }
+
+        /**
+         * Obstacle-avoiding distance to the goal from a point that does not see the goal: the
+         * best of straight distance to a vertex the point sees plus that vertex's distance.
+         * Candidates are tried from the smallest sum up, so usually only the first one or two
+         * need a visibility test.
+         * @return the distance, or infinity if no vertex the point sees reaches the goal
+         */
+        double fromHidden(double pointLng, double pointLat) {
+            int count = distance.length;
+            double[] candidate = new double[count];
+            for (int v = 0; v < count; v++) {
+                double dLng = lng[v] - pointLng;
+                double dLat = lat[v] - pointLat;
+                candidate[v] = Math.sqrt(dLng * dLng + dLat * dLat) + distance[v];
+            }
+            for (int tried = 0; tried < count; tried++) {
+                int best = 0;
+                for (int v = 1; v < count; v++) {
+                    if (candidate[v] < candidate[best]) {
+                        best = v;
+                    }
+                }
+                if (Double.isInfinite(candidate[best])) {
+                    break;
+                }
+                if (obstacles.sees(pointLng, pointLat, lng[best], lat[best])) {
+                    return candidate[best];
+                }
+                candidate[best] = Double.POSITIVE_INFINITY;
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Shortest any-angle route from a point to the goal, through the zone vertices
+         * @return longitudes and latitudes of the route's corners, start and goal included,
+         * or null if no vertex the point sees reaches the goal
+         */
+        double[][] routeFrom(double pointLng, double pointLat) {
+            int first = GOAL;
+            double best = Double.POSITIVE_INFINITY;
+            for (int v = 0; v < distance.length; v++) {
+                double dLng = lng[v] - pointLng;
+                double dLat = lat[v] - pointLat;
+                double candidate = Math.sqrt(dLng * dLng + dLat * dLat) + distance[v];
+                if (candidate < best && isClear(obstacles, pointLng, pointLat, lng[v], lat[v])) {
+                    best = candidate;
+                    first = v;
+                }
+            }
+            if (first == GOAL) {
+                return null;
+            }
+            int corners = 2;
+            for (int v = first; v != GOAL; v = towards[v]) {
+                corners++;
+            }
+            double[] routeLng = new double[corners];
+            double[] routeLat = new double[corners];
+            routeLng[0] = pointLng;
+            routeLat[0] = pointLat;
+            int i = 1;
+            for (int v = first; v != GOAL; v = towards[v]) {
+                routeLng[i] = lng[v];
+                routeLat[i++] = lat[v];
+            }
+            routeLng[i] = goalLng;
+            routeLat[i] = goalLat;
+            return new double[][]{routeLng, routeLat};
+        }
+    }
+}
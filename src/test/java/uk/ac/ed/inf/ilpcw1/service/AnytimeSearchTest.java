@@ -0,0 +1,205 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.config.PathfindingProperties;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.Limits;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the anytime search behind PathfindingService.searchPath
+ */
+@DisplayName("AnytimeSearch Unit Tests")
+public class AnytimeSearchTest {
+
+    // a zone of 0.003 degrees (20 moves) square between start and goal
+    private static final List<RestrictedArea> ZONE = List.of(RestrictedArea.builder()
+            .name("block")
+            .id(1)
+            .limits(Limits.builder().lower(0).upper(-1).build())
+            .vertices(List.of(
+                    new LngLat(-3.1880, 55.9430),
+                    new LngLat(-3.1850, 55.9430),
+                    new LngLat(-3.1850, 55.9460),
+                    new LngLat(-3.1880, 55.9460),
+                    new LngLat(-3.1880, 55.9430)))
+            .build());
+
+    private static final LngLat START = new LngLat(-3.1900, 55.9445);
+    private static final LngLat GOAL = new LngLat(-3.1830, 55.9452);
+
+    private static PathfindingService service() {
+        return service(false);
+    }
+
+    private static PathfindingService service(boolean symmetryPruning) {
+        PathfindingProperties properties = new PathfindingProperties();
+        properties.setLegCacheMaxMoves(0);
+        properties.setBidirectional(false);
+        properties.setSymmetryPruning(symmetryPruning);
+        properties.setDirectLegs(false);
+        return new PathfindingService(new RestService(), properties);
+    }
+
+    private static int moves(PathResult result) {
+        return result.path().size() - 1;
+    }
+
+    @Test
+    @DisplayName("Anytime search ends with a path as short as plain A* in fewer expansions")
+    void anytimeSearchConvergesWithFewerExpansions() {
+        PathfindingService service = service();
+        PathResult plain = service.searchPath(START, GOAL, ZONE, new SearchBudget(100_000, Duration.ZERO, 1));
+        PathResult anytime = service.searchPath(START, GOAL, ZONE, new SearchBudget(100_000, Duration.ZERO, 3));
+
+        assertTrue(plain.hasPath());
+        assertTrue(anytime.hasPath());
+        assertTrue(anytime.complete());
+        assertTrue(moves(anytime) <= moves(plain));
+        assertTrue(anytime.expansions() < plain.expansions());
+        assertTrue(anytime.suboptimalityBound() >= 1 && anytime.suboptimalityBound() < 1.1);
+    }
+
+    @Test
+    @DisplayName("A budget too small for plain A* still yields a path with a bound in anytime mode")
+    void smallBudgetReturnsBoundedPath() {
+        PathfindingService service = service();
+        int needed = service.searchPath(START, GOAL, ZONE, new SearchBudget(100_000, Duration.ZERO, 1)).expansions();
+        SearchBudget tight = new SearchBudget(Math.max(1, needed / 4), Duration.ZERO, 1);
+
+        PathResult plain = service.searchPath(START, GOAL, ZONE, tight);
+        PathResult anytime = service.searchPath(START, GOAL, ZONE,
+                new SearchBudget(tight.maxExpansions(), Duration.ZERO, 3));
+
+        assertFalse(plain.hasPath());
+        assertFalse(plain.complete());
+        assertTrue(Double.isInfinite(plain.suboptimalityBound()));
+        assertTrue(anytime.hasPath());
+        assertTrue(anytime.expansions() <= tight.maxExpansions());
+        assertTrue(anytime.suboptimalityBound() >= 1);
+        assertEquals(START, anytime.path().get(0));
+    }
+
+    @Test
+    @DisplayName("Symmetry pruning finds an equally short path in fewer expansions")
+    void symmetryPruningExpandsFewerNodes() {
+        SearchBudget budget = new SearchBudget(100_000, Duration.ZERO, 1);
+        PathResult full = service(false).searchPath(START, GOAL, ZONE, budget);
+        PathResult pruned = service(true).searchPath(START, GOAL, ZONE, budget);
+
+        assertTrue(pruned.hasPath());
+        assertEquals(moves(full), moves(pruned));
+        assertTrue(pruned.expansions() < full.expansions());
+        assertEquals(START, pruned.path().get(0));
+    }
+
+    @Test
+    @DisplayName("Symmetry pruning finds paths as short as the full search among random zones")
+    void symmetryPruningKeepsRandomPathsShortest() {
+        SearchBudget budget = new SearchBudget(200_000, Duration.ZERO, 1);
+        PathfindingService full = service(false);
+        PathfindingService pruned = service(true);
+        Random random = new Random(20);
+        int compared = 0;
+        for (int layout = 0; layout < 30; layout++) {
+            List<RestrictedArea> zones = randomZones(random, 5);
+            PreparedObstacles prepared = PreparedObstacles.build(zones);
+            for (int leg = 0; leg < 4; leg++) {
+                LngLat start = randomPoint(random);
+                LngLat goal = randomPoint(random);
+                if (prepared.isInAnyZone(start.getLongitude(), start.getLatitude())
+                        || prepared.isInAnyZone(goal.getLongitude(), goal.getLatitude())) {
+                    continue;
+                }
+                PathResult fullResult = full.searchPath(start, goal, zones, budget);
+                PathResult prunedResult = pruned.searchPath(start, goal, zones, budget);
+
+                assertEquals(fullResult.hasPath(), prunedResult.hasPath());
+                if (fullResult.hasPath()) {
+                    assertEquals(moves(fullResult), moves(prunedResult));
+                    compared++;
+                }
+            }
+        }
+        assertTrue(compared > 60);
+    }
+
+    private static LngLat randomPoint(Random random) {
+        return new LngLat(-3.191 + random.nextDouble() * 0.01, 55.939 + random.nextDouble() * 0.01);
+    }
+
+    // convex polygons of 3 to 6 vertices and 0.0005 to 0.0017 degrees across, around the points' square
+    private static List<RestrictedArea> randomZones(Random random, int count) {
+        List<RestrictedArea> zones = new ArrayList<>();
+        for (int z = 0; z < count; z++) {
+            double centreLng = -3.19 + random.nextDouble() * 0.008;
+            double centreLat = 55.94 + random.nextDouble() * 0.008;
+            int vertices = 3 + random.nextInt(4);
+            List<LngLat> ring = new ArrayList<>();
+            for (int v = 0; v < vertices; v++) {
+                double angle = 2 * Math.PI * v / vertices + random.nextDouble() * 0.5;
+                double radius = 0.0005 + random.nextDouble() * 0.0012;
+                ring.add(new LngLat(centreLng + radius * Math.cos(angle), centreLat + radius * Math.sin(angle)));
+            }
+            ring.add(ring.get(0));
+            zones.add(RestrictedArea.builder()
+                    .name("zone " + z)
+                    .id(z)
+                    .limits(Limits.builder().lower(0).upper(-1).build())
+                    .vertices(ring)
+                    .build());
+        }
+        return zones;
+    }
+
+    @Test
+    @DisplayName("A path kept to a corridor round the longer side of the zone is not reported as shortest")
+    void corridorLimitedPathIsNotProvenShortest() {
+        PreparedObstacles zones = PreparedObstacles.build(ZONE);
+        // the goal is nearer the top edge of the zone; the corridor only follows the bottom one
+        RouteCorridor bottom = new RouteCorridor(
+                new double[]{START.getLongitude(), -3.1880, -3.1850, GOAL.getLongitude()},
+                new double[]{START.getLatitude(), 55.9430, 55.9430, GOAL.getLatitude()}, 0.0003);
+
+        SearchOutcome limited = search(zones, bottom);
+        SearchOutcome free = search(zones, null);
+
+        assertTrue(limited.hasPath());
+        int limitedMoves = limited.offsets().length / 2 - 1;
+        int freeMoves = free.offsets().length / 2 - 1;
+        assertTrue(limitedMoves > freeMoves);
+        assertTrue(limitedMoves <= limited.suboptimalityBound() * freeMoves);
+    }
+
+    private static SearchOutcome search(PreparedObstacles zones, RouteCorridor corridor) {
+        LegHeuristic heuristic = LegHeuristic.forLeg(START.getLongitude(), START.getLatitude(),
+                GOAL.getLongitude(), GOAL.getLatitude(), zones, false, false);
+        return new AnytimeSearch(new SearchWorkspace(), START.getLongitude(), START.getLatitude(), heuristic,
+                zones, corridor, false, 1, 100_000, Long.MAX_VALUE).run();
+    }
+
+    @Test
+    @DisplayName("findPath keeps using the configured default budget")
+    void findPathUsesDefaultBudget() {
+        PathfindingService service = service();
+        assertEquals(new SearchBudget(100_000, Duration.ZERO, 1), service.defaultBudget());
+        assertEquals(service.searchPath(START, GOAL, ZONE, service.defaultBudget()).path(),
+                service.findPath(START, GOAL, ZONE));
+    }
+
+    @Test
+    @DisplayName("Invalid budgets are rejected")
+    void invalidBudgetsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchBudget(0, Duration.ZERO, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SearchBudget(10, Duration.ofMillis(-1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new SearchBudget(10, Duration.ZERO, 0.5));
+    }
+}
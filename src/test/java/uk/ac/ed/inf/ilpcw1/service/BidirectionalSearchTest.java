@@ -0,0 +1,78 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.config.PathfindingProperties;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.Limits;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bidirectional search of long legs
+ */
+@DisplayName("BidirectionalSearch Unit Tests")
+public class BidirectionalSearchTest {
+
+    // George Square, between start and goal
+    private static final List<RestrictedArea> ZONE = List.of(RestrictedArea.builder()
+            .name("George Square Area")
+            .id(1)
+            .limits(Limits.builder().lower(0).upper(-1).build())
+            .vertices(List.of(
+                    new LngLat(-3.19057881832123, 55.9440241257753),
+                    new LngLat(-3.18998873233795, 55.9428465054091),
+                    new LngLat(-3.1870973110199, 55.9432881172426),
+                    new LngLat(-3.18768203258514, 55.9444777403937),
+                    new LngLat(-3.19057881832123, 55.9440241257753)))
+            .build());
+
+    private static final LngLat START = new LngLat(-3.1950, 55.9435);
+    private static final LngLat GOAL = new LngLat(-3.1830, 55.9440);
+
+    private static PathfindingService service(boolean bidirectional) {
+        PathfindingProperties properties = new PathfindingProperties();
+        properties.setLegCacheMaxMoves(0);
+        properties.setBidirectional(bidirectional);
+        return new PathfindingService(new RestService(), properties);
+    }
+
+    private static void assertFlyable(List<LngLat> path) {
+        PreparedObstacles zones = PreparedObstacles.build(ZONE);
+        for (int i = 1; i < path.size(); i++) {
+            LngLat from = path.get(i - 1);
+            LngLat to = path.get(i);
+            double length = Math.hypot(to.getLongitude() - from.getLongitude(), to.getLatitude() - from.getLatitude());
+            assertEquals(0.00015, length, 1e-12);
+            assertFalse(zones.blocks(from.getLongitude(), from.getLatitude(), to.getLongitude(), to.getLatitude()));
+        }
+    }
+
+    @Test
+    @DisplayName("Searching from both ends finds an equally short, flyable path in fewer expansions")
+    void bidirectionalSearchExpandsFewerNodes() {
+        PathResult oneSided = service(false).searchPath(START, GOAL, ZONE, service(false).defaultBudget());
+        PathResult bidirectional = service(true).searchPath(START, GOAL, ZONE, service(true).defaultBudget());
+
+        assertTrue(oneSided.hasPath());
+        assertTrue(bidirectional.hasPath());
+        assertTrue(bidirectional.complete());
+        assertEquals(oneSided.path().size(), bidirectional.path().size());
+        assertTrue(bidirectional.expansions() < oneSided.expansions());
+        assertEquals(START, bidirectional.path().get(0));
+        assertTrue(new RestService().isCloseTo(bidirectional.path().get(bidirectional.path().size() - 1), GOAL));
+        assertFlyable(bidirectional.path());
+    }
+
+    @Test
+    @DisplayName("Short legs are searched from the start only")
+    void shortLegsAreSearchedFromTheStart() {
+        LngLat start = new LngLat(-3.1920, 55.9435);
+        LngLat goal = new LngLat(-3.1910, 55.9430);
+
+        assertEquals(service(false).findPath(start, goal, ZONE), service(true).findPath(start, goal, ZONE));
+    }
+}
@@ -0,0 +1,90 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.config.PathfindingProperties;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.Limits;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DirectLeg
+ */
+@DisplayName("DirectLeg Unit Tests")
+public class DirectLegTest {
+
+    private static final List<RestrictedArea> ZONE = List.of(RestrictedArea.builder()
+            .name("George Square Area")
+            .id(1)
+            .limits(Limits.builder().lower(0).upper(-1).build())
+            .vertices(List.of(
+                    new LngLat(-3.19057881832123, 55.9440241257753),
+                    new LngLat(-3.18998873233795, 55.9428465054091),
+                    new LngLat(-3.1870973110199, 55.9432881172426),
+                    new LngLat(-3.18768203258514, 55.9444777403937),
+                    new LngLat(-3.19057881832123, 55.9440241257753)))
+            .build());
+
+    private static final LngLat START = new LngLat(-3.1950, 55.9435);
+
+    @Test
+    @DisplayName("Clear legs get paths as short as the search's, flyable and ending by the goal")
+    void directPathsAreAsShortAsSearchedOnes() {
+        PathfindingProperties properties = new PathfindingProperties();
+        properties.setLegCacheMaxMoves(0);
+        properties.setBidirectional(false);
+        properties.setSymmetryPruning(false);
+        properties.setDirectLegs(false);
+        PathfindingService search = new PathfindingService(new RestService(), properties);
+        PreparedObstacles zones = PreparedObstacles.build(ZONE);
+        RestService restService = new RestService();
+
+        Random random = new Random(25);
+        int direct = 0;
+        for (int i = 0; i < 60; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double length = 0.0003 + random.nextDouble() * 0.006;
+            LngLat goal = new LngLat(START.getLongitude() + length * Math.cos(angle),
+                    START.getLatitude() + length * Math.sin(angle));
+            long[] offsets = DirectLeg.find(START.getLongitude(), START.getLatitude(),
+                    goal.getLongitude(), goal.getLatitude(), zones);
+            if (offsets == null) {
+                continue;
+            }
+            direct++;
+            List<LngLat> searched = search.findPath(START, goal, ZONE);
+            assertEquals(searched.size(), offsets.length / 2);
+
+            double lng = START.getLongitude();
+            double lat = START.getLatitude();
+            for (int j = 1; j < offsets.length / 2; j++) {
+                double nextLng = START.getLongitude() + MoveLattice.toDegrees(offsets[2 * j]);
+                double nextLat = START.getLatitude() + MoveLattice.toDegrees(offsets[2 * j + 1]);
+                assertEquals(0.00015, Math.hypot(nextLng - lng, nextLat - lat), 1e-9);
+                assertFalse(zones.blocks(lng, lat, nextLng, nextLat));
+                lng = nextLng;
+                lat = nextLat;
+            }
+            assertTrue(restService.isCloseTo(new LngLat(lng, lat), goal));
+        }
+        assertTrue(direct > 30);
+    }
+
+    @Test
+    @DisplayName("A leg across a zone is left to the search, and the service still finds it")
+    void obstructedLegIsSearched() {
+        LngLat beyond = new LngLat(-3.1850, 55.9440);
+        assertNull(DirectLeg.find(START.getLongitude(), START.getLatitude(),
+                beyond.getLongitude(), beyond.getLatitude(), PreparedObstacles.build(ZONE)));
+
+        PathfindingService service = new PathfindingService(new RestService());
+        PathResult result = service.searchPath(START, beyond, ZONE, service.defaultBudget());
+        assertTrue(result.expansions() > 0);
+        assertTrue(result.complete());
+    }
+}
@@ -0,0 +1,79 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.data.Drone;
+import uk.ac.ed.inf.ilpcw1.data.DroneAvailabilityDetails;
+import uk.ac.ed.inf.ilpcw1.data.DroneServicePointRequest;
+import uk.ac.ed.inf.ilpcw1.data.DronesAtServicePoint;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.ServicePoints;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FleetIndex
+ */
+@DisplayName("FleetIndex Unit Tests")
+public class FleetIndexTest {
+
+    private static final ServicePoints APPLETON = new ServicePoints("Appleton Tower", 1, new LngLat(-3.1863, 55.9446));
+    private static final ServicePoints OCEAN = new ServicePoints("Ocean Terminal", 2, new LngLat(-3.1743, 55.9811));
+
+    private static final List<DroneAvailabilityDetails> MONDAY =
+            List.of(new DroneAvailabilityDetails(DayOfWeek.MONDAY, LocalTime.MIN, LocalTime.NOON));
+    private static final List<DroneAvailabilityDetails> TUESDAY =
+            List.of(new DroneAvailabilityDetails(DayOfWeek.TUESDAY, LocalTime.MIN, LocalTime.NOON));
+
+    private final List<Drone> drones = List.of(
+            new Drone("1", "Drone 1", null),
+            new Drone("2", "Drone 2", null),
+            new Drone("3", "Drone 3", null));
+    private final List<DroneServicePointRequest> availability = List.of(
+            new DroneServicePointRequest(1, List.of(
+                    new DronesAtServicePoint("1", MONDAY),
+                    new DronesAtServicePoint("2", MONDAY))),
+            new DroneServicePointRequest(2, List.of(
+                    new DronesAtServicePoint("2", TUESDAY),
+                    new DronesAtServicePoint("9", TUESDAY))),
+            new DroneServicePointRequest(99, List.of(
+                    new DronesAtServicePoint("1", TUESDAY))));
+    private final List<ServicePoints> servicePoints = List.of(APPLETON, OCEAN);
+
+    @Test
+    @DisplayName("Drones map to the last listed known service point")
+    void homeServicePoints() {
+        FleetIndex index = FleetIndex.build(drones, availability, servicePoints);
+
+        assertSame(APPLETON, index.homeServicePoint().get("1"));
+        assertSame(OCEAN, index.homeServicePoint().get("2"));
+        assertFalse(index.homeServicePoint().containsKey("3"));
+        assertFalse(index.homeServicePoint().containsKey("9"));
+    }
+
+    @Test
+    @DisplayName("Drone and availability lookups match the source lists")
+    void droneAndAvailabilityLookups() {
+        FleetIndex index = FleetIndex.build(drones, availability, servicePoints);
+
+        assertEquals(3, index.droneById().size());
+        assertSame(drones.get(1), index.droneById().get("2"));
+        assertSame(TUESDAY, index.availabilityByDrone().get("1"));
+        assertSame(TUESDAY, index.availabilityByDrone().get("9"));
+        assertThrows(UnsupportedOperationException.class, () -> index.droneById().remove("1"));
+    }
+
+    @Test
+    @DisplayName("Index is tied to the identity of its source lists")
+    void tiedToSourceLists() {
+        FleetIndex index = FleetIndex.build(drones, availability, servicePoints);
+
+        assertTrue(index.isFor(drones, availability, servicePoints));
+        assertFalse(index.isFor(new ArrayList<>(drones), availability, servicePoints));
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FreeSpaceComponents
+ */
+@DisplayName("FreeSpaceComponents Unit Tests")
+public class FreeSpaceComponentsTest {
+
+    private static final double CLOSE = 0.00015;
+
+    // four overlapping walls, 0.0006 degrees thick, around a courtyard from -3.1890 to -3.1850, 55.9430 to 55.9460
+    private static final List<RestrictedArea> WALLS = List.of(
+            wall("west", -3.1896, 55.9424, -3.1890, 55.9466),
+            wall("east", -3.1850, 55.9424, -3.1844, 55.9466),
+            wall("south", -3.1896, 55.9424, -3.1844, 55.9430),
+            wall("north", -3.1896, 55.9460, -3.1844, 55.9466));
+
+    private static final LngLat OUTSIDE = new LngLat(-3.1920, 55.9445);
+    private static final LngLat COURTYARD = new LngLat(-3.1870, 55.9445);
+
+    private static RestrictedArea wall(String name, double minLng, double minLat, double maxLng, double maxLat) {
+        return RestrictedArea.builder()
+                .name(name)
+                .vertices(List.of(
+                        new LngLat(minLng, minLat),
+                        new LngLat(maxLng, minLat),
+                        new LngLat(maxLng, maxLat),
+                        new LngLat(minLng, maxLat),
+                        new LngLat(minLng, minLat)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("A courtyard walled in by zones is cut off from outside, but not from itself")
+    void walledInGoalIsSeparated() {
+        PreparedObstacles obstacles = PreparedObstacles.build(WALLS);
+        // not labelled yet, so the search is left to decide
+        assertFalse(obstacles.separates(OUTSIDE.getLongitude(), OUTSIDE.getLatitude(),
+                COURTYARD.getLongitude(), COURTYARD.getLatitude(), CLOSE));
+        obstacles.buildFreeSpaceComponents(Runnable::run);
+
+        assertTrue(obstacles.separates(OUTSIDE.getLongitude(), OUTSIDE.getLatitude(),
+                COURTYARD.getLongitude(), COURTYARD.getLatitude(), CLOSE));
+        assertTrue(obstacles.separates(COURTYARD.getLongitude(), COURTYARD.getLatitude(),
+                -3.2500, 55.9000, CLOSE));
+        assertFalse(obstacles.separates(COURTYARD.getLongitude(), COURTYARD.getLatitude(),
+                -3.1860, 55.9450, CLOSE));
+        assertFalse(obstacles.separates(OUTSIDE.getLongitude(), OUTSIDE.getLatitude(),
+                -3.2500, 55.9000, CLOSE));
+        // inside a wall but within the close distance of its outer face
+        assertFalse(obstacles.separates(OUTSIDE.getLongitude(), OUTSIDE.getLatitude(),
+                -3.18955, 55.9445, CLOSE));
+        assertFalse(PreparedObstacles.build(List.of()).separates(OUTSIDE.getLongitude(), OUTSIDE.getLatitude(),
+                COURTYARD.getLongitude(), COURTYARD.getLatitude(), CLOSE));
+    }
+
+    @Test
+    @DisplayName("A leg into a walled-in courtyard fails without searching")
+    void unreachableLegIsNotSearched() throws InterruptedException {
+        PathfindingService service = new PathfindingService(new RestService());
+        // the components are labelled in the background; until then a short search is cut off by its budget
+        SearchBudget small = new SearchBudget(100, Duration.ZERO, 1);
+
+        PathResult result = service.searchPath(OUTSIDE, COURTYARD, WALLS, small);
+        for (int i = 0; i < 500 && result.expansions() > 0; i++) {
+            Thread.sleep(10);
+            result = service.searchPath(OUTSIDE, COURTYARD, WALLS, small);
+        }
+        assertFalse(result.hasPath());
+        assertTrue(result.complete());
+        assertEquals(0, result.expansions());
+    }
+}
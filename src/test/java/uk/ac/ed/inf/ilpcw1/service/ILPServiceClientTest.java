@@ -0,0 +1,461 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.ilpcw1.config.ReferenceDataProperties;
+import uk.ac.ed.inf.ilpcw1.data.ReferenceDataSnapshot;
+import uk.ac.ed.inf.ilpcw1.exception.UpstreamUnavailableException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for ILPServiceClient
+ */
+@DisplayName("ILPServiceClient Unit Tests")
+public class ILPServiceClientTest {
+
+    private static final String ENDPOINT = "http://ilp.test/";
+
+    private static final String DRONES = """
+            [{"id":"1","name":"Drone 1","capability":{"cooling":true,"heating":false,"capacity":4.0,
+              "maxMoves":2000,"costPerMove":0.01,"costInitial":4.3,"costFinal":6.5}}]""";
+    private static final String AVAILABILITY = """
+            [{"servicePointId":1,"drones":[{"id":"1","availability":[
+              {"dayOfWeek":"MONDAY","from":"00:00:00","until":"23:59:59"}]}]}]""";
+    private static final String SERVICE_POINTS = """
+            [{"name":"Appleton Tower","id":1,"location":{"lng":-3.186358,"lat":55.944680}}]""";
+    private static final String RESTRICTED_AREAS = """
+            [{"name":"George Square Area","id":1,"limits":{"lower":0,"upper":-1},"vertices":[
+              {"lng":-3.190578,"lat":55.944024},{"lng":-3.189988,"lat":55.942846},
+              {"lng":-3.187097,"lat":55.943288},{"lng":-3.190578,"lat":55.944024}]}]""";
+
+    private MockRestServiceServer server;
+    private ILPServiceClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        client = new ILPServiceClient(ENDPOINT, restTemplate, new ObjectMapper().findAndRegisterModules(),
+                new ReferenceDataProperties());
+    }
+
+    private void expectAllResources(ExpectedCount count) {
+        server.expect(count, requestTo(ENDPOINT + "drones"))
+                .andRespond(withSuccess(DRONES, MediaType.APPLICATION_JSON));
+        server.expect(count, requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(count, requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(count, requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @DisplayName("First read loads all four resources into one snapshot")
+    void firstReadLoadsSnapshot() {
+        expectAllResources(ExpectedCount.once());
+
+        ReferenceDataSnapshot snapshot = client.getSnapshot();
+
+        assertEquals(1, snapshot.drones().size());
+        assertEquals("1", snapshot.drones().get(0).getId());
+        assertEquals(1, snapshot.availability().size());
+        assertEquals(1, snapshot.servicePoints().size());
+        assertEquals(4, snapshot.restrictedAreas().get(0).getVertices().size());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Later reads are served from the snapshot without upstream calls")
+    void laterReadsDoNotCallUpstream() {
+        expectAllResources(ExpectedCount.once());
+
+        ReferenceDataSnapshot first = client.getSnapshot();
+        client.getAllDrones();
+        client.getDroneAvailability();
+        client.getServicePoints();
+        client.getRestrictedAreas();
+
+        assertSame(first, client.getSnapshot());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Refresh publishes a new version when a resource changed")
+    void refreshPublishesNewVersion() {
+        expectAllResources(ExpectedCount.once());
+        long first = client.getSnapshot().version();
+
+        server.reset();
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+
+        client.refreshSnapshot();
+
+        assertTrue(client.getSnapshot().version() > first);
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Failed background refresh keeps the previous snapshot")
+    void failedRefreshKeepsPreviousSnapshot() {
+        expectAllResources(ExpectedCount.once());
+        ReferenceDataSnapshot first = client.getSnapshot();
+
+        server.reset();
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones")).andRespond(withServerError());
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones-for-service-points")).andRespond(withServerError());
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "service-points")).andRespond(withServerError());
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "restricted-areas")).andRespond(withServerError());
+
+        client.scheduledRefresh();
+
+        assertSame(first, client.getSnapshot());
+    }
+
+    @Test
+    @DisplayName("Unchanged content keeps the same snapshot and lists")
+    void unchangedContentKeepsSnapshot() {
+        expectAllResources(ExpectedCount.twice());
+
+        ReferenceDataSnapshot first = client.getSnapshot();
+        ReferenceDataSnapshot second = client.refreshSnapshot();
+
+        assertSame(first, second);
+        assertSame(first.restrictedAreas(), client.getRestrictedAreas());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("ETag is replayed and 304 reuses the previous list")
+    void notModifiedReusesPreviousList() {
+        HttpHeaders etag = new HttpHeaders();
+        etag.setETag("\"v1\"");
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andRespond(withSuccess(DRONES, MediaType.APPLICATION_JSON).headers(etag));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        server.expect(ExpectedCount.twice(), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.twice(), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        ReferenceDataSnapshot first = client.getSnapshot();
+        ReferenceDataSnapshot second = client.refreshSnapshot();
+
+        assertNotSame(first, second);
+        assertSame(first.drones(), second.drones());
+        assertSame(first.servicePoints(), second.servicePoints());
+        assertTrue(second.restrictedAreas().isEmpty());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("An empty body is a version of its own, kept by a later 304")
+    void emptyBodyIsKeptAcrossNotModified() {
+        HttpHeaders first = new HttpHeaders();
+        first.setETag("\"v1\"");
+        HttpHeaders emptied = new HttpHeaders();
+        emptied.setETag("\"v2\"");
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andRespond(withSuccess(DRONES, MediaType.APPLICATION_JSON).headers(first));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withSuccess().headers(emptied));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v2\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        server.expect(ExpectedCount.times(3), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.times(3), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.times(3), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+
+        assertFalse(client.getSnapshot().drones().isEmpty());
+        ReferenceDataSnapshot emptySnapshot = client.refreshSnapshot();
+        assertTrue(emptySnapshot.drones().isEmpty());
+        ReferenceDataSnapshot notModified = client.refreshSnapshot();
+
+        assertSame(emptySnapshot, notModified);
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("A failing resource falls back to its last good value")
+    void failingResourceFallsBackToLastGood() {
+        expectAllResources(ExpectedCount.once());
+        ReferenceDataSnapshot first = client.getSnapshot();
+
+        server.reset();
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones")).andRespond(withServerError());
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        ReferenceDataSnapshot second = client.refreshSnapshot();
+
+        assertNotSame(first, second);
+        assertSame(first.drones(), second.drones());
+        assertTrue(second.restrictedAreas().isEmpty());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Cold start with the upstream down throws UpstreamUnavailableException")
+    void coldStartFailureIsUnavailable() {
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones")).andRespond(withServerError());
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.getAllDrones());
+    }
+
+    @Test
+    @DisplayName("Open circuit stops calling a failing resource")
+    void openCircuitStopsCallingResource() {
+        ReferenceDataProperties properties = new ReferenceDataProperties();
+        properties.getCircuitBreaker().setFailureThreshold(1);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        client = new ILPServiceClient(ENDPOINT, restTemplate, new ObjectMapper().findAndRegisterModules(), properties);
+
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andRespond(withSuccess(DRONES, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(ENDPOINT + "drones"))
+                .andRespond(withServerError());
+        server.expect(ExpectedCount.times(3), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.times(3), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.times(3), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+
+        ReferenceDataSnapshot first = client.getSnapshot();
+        client.refreshSnapshot();
+        ReferenceDataSnapshot third = client.refreshSnapshot();
+
+        assertSame(first.drones(), third.drones());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("A timed-out fetch counts once towards opening the circuit")
+    void timedOutFetchCountsOnce() throws InterruptedException {
+        ReferenceDataProperties properties = new ReferenceDataProperties();
+        properties.setResourceTimeout(Duration.ofMillis(100));
+        properties.getCircuitBreaker().setFailureThreshold(2);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+
+        Map<String, String> bodies = Map.of(
+                ENDPOINT + "drones", DRONES,
+                ENDPOINT + "drones-for-service-points", AVAILABILITY,
+                ENDPOINT + "service-points", SERVICE_POINTS,
+                ENDPOINT + "restricted-areas", RESTRICTED_AREAS);
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        CountDownLatch stalledDronesDone = new CountDownLatch(1);
+
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+                                                  Class<T> responseType, Object... uriVariables) {
+                int call = calls.computeIfAbsent(url, k -> new AtomicInteger()).incrementAndGet();
+                if (url.endsWith("/drones") && call == 2) {
+                    // the second drones request outlives the resource timeout, then fails
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    stalledDronesDone.countDown();
+                    throw new IllegalStateException("upstream failed late");
+                }
+                return (ResponseEntity<T>) ResponseEntity.ok(bodies.get(url).getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        client = new ILPServiceClient(ENDPOINT, restTemplate, new ObjectMapper().findAndRegisterModules(), properties);
+
+        ReferenceDataSnapshot first = client.getSnapshot();
+        assertSame(first.drones(), client.refreshSnapshot().drones());
+        assertTrue(stalledDronesDone.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        // one failure so far, below the threshold, so the circuit still lets the next fetch through
+        client.refreshSnapshot();
+        assertEquals(3, calls.get(ENDPOINT + "drones").get());
+    }
+
+    @Test
+    @DisplayName("Stale snapshot is returned immediately and refreshed in the background")
+    void staleSnapshotRefreshesInBackground() throws InterruptedException {
+        ReferenceDataProperties properties = new ReferenceDataProperties();
+        properties.setMaxAge(Duration.ZERO);
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        client = new ILPServiceClient(ENDPOINT, restTemplate, new ObjectMapper().findAndRegisterModules(), properties);
+
+        expectAllResources(ExpectedCount.once());
+        ReferenceDataSnapshot first = client.getSnapshot();
+
+        server.reset();
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+
+        assertSame(first, client.getSnapshot());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.getSnapshot() == first && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(client.getSnapshot().version() > first.version());
+        assertTrue(client.getSnapshot().drones().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Slow request is hedged and the faster response is used")
+    void slowRequestIsHedged() {
+        ReferenceDataProperties properties = new ReferenceDataProperties();
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setMinSamples(1);
+        properties.getHedging().setMinDelay(Duration.ofMillis(20));
+
+        Map<String, String> bodies = Map.of(
+                ENDPOINT + "drones", DRONES,
+                ENDPOINT + "drones-for-service-points", AVAILABILITY,
+                ENDPOINT + "service-points", SERVICE_POINTS,
+                ENDPOINT + "restricted-areas", RESTRICTED_AREAS);
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        CountDownLatch slowDronesRelease = new CountDownLatch(1);
+
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+                                                  Class<T> responseType, Object... uriVariables) {
+                int call = calls.computeIfAbsent(url, k -> new AtomicInteger()).incrementAndGet();
+                if (url.endsWith("/drones") && call == 2) {
+                    // the second drones request stalls; only a hedge can answer in time
+                    try {
+                        slowDronesRelease.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] body = (url.endsWith("/drones") && call > 1 ? "[]" : bodies.get(url))
+                        .getBytes(StandardCharsets.UTF_8);
+                return (ResponseEntity<T>) ResponseEntity.ok(body);
+            }
+        };
+        client = new ILPServiceClient(ENDPOINT, restTemplate, new ObjectMapper().findAndRegisterModules(), properties);
+
+        try {
+            client.getSnapshot();
+            long start = System.nanoTime();
+            ReferenceDataSnapshot refreshed = client.refreshSnapshot();
+
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 2);
+            assertTrue(refreshed.drones().isEmpty());
+            assertEquals(3, calls.get(ENDPOINT + "drones").get());
+        } finally {
+            slowDronesRelease.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Persisted snapshot warm-starts a new client before any upstream call")
+    void persistedSnapshotWarmStarts(@TempDir Path dir) throws InterruptedException {
+        Path file = dir.resolve("reference-data.bin");
+        ReferenceDataProperties properties = new ReferenceDataProperties();
+        properties.setSnapshotFile(file.toString());
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        client = new ILPServiceClient(ENDPOINT, restTemplate, new ObjectMapper().findAndRegisterModules(), properties);
+        expectAllResources(ExpectedCount.once());
+
+        ReferenceDataSnapshot original = client.getSnapshot();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(file) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(file));
+
+        RestTemplate restartedTemplate = new RestTemplate();
+        MockRestServiceServer restartedServer = MockRestServiceServer.bindTo(restartedTemplate).ignoreExpectOrder(true).build();
+        restartedServer.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones"))
+                .andRespond(withSuccess(DRONES, MediaType.APPLICATION_JSON));
+        restartedServer.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "drones-for-service-points"))
+                .andRespond(withSuccess(AVAILABILITY, MediaType.APPLICATION_JSON));
+        restartedServer.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "service-points"))
+                .andRespond(withSuccess(SERVICE_POINTS, MediaType.APPLICATION_JSON));
+        restartedServer.expect(ExpectedCount.manyTimes(), requestTo(ENDPOINT + "restricted-areas"))
+                .andRespond(withSuccess(RESTRICTED_AREAS, MediaType.APPLICATION_JSON));
+        ILPServiceClient restarted = new ILPServiceClient(ENDPOINT, restartedTemplate,
+                new ObjectMapper().findAndRegisterModules(), properties);
+
+        restarted.loadPersistedSnapshot();
+        ReferenceDataSnapshot warm = restarted.getSnapshot();
+
+        assertEquals(original.version(), warm.version());
+        assertEquals(original.drones(), warm.drones());
+        assertEquals(original.availability(), warm.availability());
+        assertEquals(original.servicePoints(), warm.servicePoints());
+        assertEquals(original.restrictedAreas(), warm.restrictedAreas());
+
+        // identical content revalidates against the stored hashes and keeps the warm snapshot
+        assertSame(warm, restarted.refreshSnapshot());
+    }
+}
@@ -0,0 +1,100 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IndexedMinHeap and LongIntHashMap
+ */
+@DisplayName("Search Structure Unit Tests")
+public class IndexedMinHeapTest {
+
+    @Test
+    @DisplayName("Heap polls ids in priority order after decrease-key")
+    void pollsInPriorityOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.insert(0, 5.0);
+        heap.insert(1, 3.0);
+        heap.insert(2, 8.0);
+        heap.insert(3, 1.0);
+        heap.decreaseKey(2, 0.5);
+        heap.insertOrDecrease(0, 2.0);
+
+        assertEquals(4, heap.size());
+        assertEquals(0.5, heap.minKey());
+        List<Integer> order = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            order.add(heap.pollMin());
+        }
+        assertEquals(List.of(2, 3, 0, 1), order);
+        assertFalse(heap.contains(2));
+    }
+
+    @Test
+    @DisplayName("Heap grows past its initial capacity and matches a sorted order")
+    void growsAndStaysOrdered() {
+        IndexedMinHeap heap = new IndexedMinHeap(1);
+        Random random = new Random(7);
+        double[] keys = new double[1000];
+        for (int id = 0; id < keys.length; id++) {
+            keys[id] = random.nextDouble();
+            heap.insert(id, keys[id]);
+        }
+
+        double previous = Double.NEGATIVE_INFINITY;
+        while (!heap.isEmpty()) {
+            int id = heap.pollMin();
+            assertTrue(keys[id] >= previous);
+            previous = keys[id];
+        }
+
+        heap.insert(5, 1.0);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(5));
+    }
+
+    @Test
+    @DisplayName("Hash map stores, overwrites and resizes without losing entries")
+    void hashMapRoundTrip() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        for (int i = 0; i < 5000; i++) {
+            map.put(((long) i << 32) | (-i & 0xffffffffL), i);
+        }
+        map.put(0L, 42);
+
+        assertEquals(5000, map.size());
+        assertEquals(42, map.get(0L, -1));
+        assertEquals(4999, map.get((4999L << 32) | (-4999 & 0xffffffffL), -1));
+        assertEquals(-1, map.get(123456789L, -1));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(0L, -1));
+    }
+
+    @Test
+    @DisplayName("A cleared hash map is reused without stale entries")
+    void hashMapReuseAfterClear() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                map.put(round * 1000L + i, i);
+            }
+            assertEquals(100, map.size());
+            assertEquals(7, map.get(round * 1000L + 7, -1));
+            if (round > 0) {
+                assertEquals(-1, map.get((round - 1) * 1000L + 7, -1));
+            }
+            map.clear();
+        }
+        map.put(Long.MIN_VALUE, 3);
+        assertEquals(3, map.get(Long.MIN_VALUE, -1));
+    }
+}
@@ -0,0 +1,73 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LandmarkDistances
+ */
+@DisplayName("LandmarkDistances Unit Tests")
+public class LandmarkDistancesTest {
+
+    private static final double GOAL_LNG = -3.1830;
+    private static final double GOAL_LAT = 55.9445;
+
+    // square zone of 0.003 degrees (20 moves) per side
+    private static PreparedObstacles square() {
+        return PreparedObstacles.build(List.of(RestrictedArea.builder()
+                .name("square")
+                .vertices(List.of(
+                        new LngLat(-3.1880, 55.9430),
+                        new LngLat(-3.1850, 55.9430),
+                        new LngLat(-3.1850, 55.9460),
+                        new LngLat(-3.1880, 55.9460),
+                        new LngLat(-3.1880, 55.9430)))
+                .build()));
+    }
+
+    @Test
+    @DisplayName("The bound behind a zone beats the straight distance without exceeding the route around it")
+    void boundIsTighterThanStraightAndAdmissible() {
+        PreparedObstacles obstacles = square();
+        LandmarkDistances landmarks = obstacles.landmarkDistances();
+        VisibilityGraph.GoalDistances toGoal = obstacles.visibilityGraph().distancesTo(GOAL_LNG, GOAL_LAT);
+        double[] goal = landmarks.goalDistances(GOAL_LNG, GOAL_LAT);
+
+        double behindLng = -3.1900;
+        double behindLat = 55.9445;
+        double straight = Math.hypot(behindLng - GOAL_LNG, behindLat - GOAL_LAT);
+        double around = toGoal.fromHidden(behindLng, behindLat);
+        double bound = landmarks.lowerBound(behindLng, behindLat, goal);
+        assertTrue(bound > straight);
+        assertTrue(bound <= around);
+
+        for (int i = 0; i < 40; i++) {
+            double lng = -3.1920 + i * 0.0003;
+            for (double lat : new double[]{55.9400, 55.9425, 55.9445, 55.9470}) {
+                double exact = obstacles.sees(lng, lat, GOAL_LNG, GOAL_LAT)
+                        ? Math.hypot(lng - GOAL_LNG, lat - GOAL_LAT)
+                        : toGoal.fromHidden(lng, lat);
+                if (!obstacles.isInAnyZone(lng, lat)) {
+                    assertTrue(landmarks.lowerBound(lng, lat, goal) <= exact + 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("No landmarks are kept without zones, and none are used next to a zone")
+    void noBoundWithoutZonesOrNearAZone() {
+        assertNull(PreparedObstacles.build(List.of()).landmarkDistances());
+
+        PreparedObstacles obstacles = square();
+        double[] goal = obstacles.landmarkDistances().goalDistances(GOAL_LNG, GOAL_LAT);
+        assertEquals(0, obstacles.landmarkDistances().lowerBound(-3.18805, 55.9445, goal));
+        assertSame(obstacles.landmarkDistances(), obstacles.landmarkDistances());
+    }
+}
@@ -0,0 +1,88 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.config.PathfindingProperties;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for LegCache
+ */
+@DisplayName("LegCache Unit Tests")
+public class LegCacheTest {
+
+    private static final SearchBudget BUDGET = new SearchBudget(100_000, Duration.ZERO, 1);
+
+    private static LegCache.Key key(int leg, long version) {
+        return LegCache.Key.of(-3.19, 55.94, -3.18 + leg * 0.001, 55.95, version, BUDGET);
+    }
+
+    private static LegCache.Leg leg(int points) {
+        return new LegCache.Leg(new long[2 * points], 1, true);
+    }
+
+    @Test
+    @DisplayName("Legs are cached per start, goal and obstacle version, including legs with no path")
+    void cachesLegsPerObstacleVersion() {
+        LegCache cache = new LegCache(16_000);
+        LegCache.Leg path = new LegCache.Leg(new long[]{0, 0, 150_000_000L, 0}, 1, true);
+        LegCache.Leg noPath = new LegCache.Leg(null, Double.POSITIVE_INFINITY, true);
+        cache.put(key(1, 1), path);
+        cache.put(key(2, 1), noPath);
+
+        assertSame(path, cache.get(key(1, 1)));
+        assertSame(noPath, cache.get(key(2, 1)));
+        assertNull(cache.get(key(1, 2)));
+        assertNull(cache.get(LegCache.Key.of(-3.19, 55.94, -3.179, 55.95, 1, new SearchBudget(500, Duration.ZERO, 1))));
+        assertEquals(LegCache.Key.of(-3.19, 55.94, -3.179, 55.95, 1, BUDGET), key(1, 1));
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    @DisplayName("Least recently used legs are evicted once the cached moves exceed the budget")
+    void evictsLeastRecentlyUsedLegs() {
+        LegCache cache = new LegCache(25, 1);
+        cache.put(key(1, 1), leg(10));
+        cache.put(key(2, 1), leg(10));
+        cache.get(key(1, 1));
+        cache.put(key(3, 1), leg(10));
+
+        assertNull(cache.get(key(2, 1)));
+        assertNotNull(cache.get(key(1, 1)));
+        assertNotNull(cache.get(key(3, 1)));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("A disabled cache stores nothing")
+    void zeroBudgetDisablesTheCache() {
+        LegCache cache = new LegCache(0);
+        cache.put(key(1, 1), leg(1));
+        assertNull(cache.get(key(1, 1)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("A repeated leg is served from the cache as a fresh copy of the same path")
+    void repeatedLegIsServedFromCache() {
+        PathfindingService service = new PathfindingService(mock(RestService.class), new PathfindingProperties());
+        LngLat start = new LngLat(-3.1863, 55.9447);
+        LngLat goal = new LngLat(-3.1833, 55.9457);
+
+        List<LngLat> first = service.findPath(start, goal, List.of());
+        List<LngLat> second = service.findPath(new LngLat(-3.1863, 55.9447), new LngLat(-3.1833, 55.9457), List.of());
+
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertNotSame(first.get(0), second.get(0));
+        assertEquals(start, second.get(0));
+    }
+}
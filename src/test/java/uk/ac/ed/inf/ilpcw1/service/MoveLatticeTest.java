@@ -0,0 +1,70 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MoveLattice
+ */
+@DisplayName("MoveLattice Unit Tests")
+public class MoveLatticeTest {
+
+    private final RestService restService = new RestService();
+
+    @Test
+    @DisplayName("Moves match RestService.nextPosition to within a lattice unit")
+    void movesMatchNextPosition() {
+        LngLat origin = LngLat.builder().longitude(0.0).latitude(0.0).build();
+        for (int d = 0; d < MoveLattice.DIRECTIONS; d++) {
+            LngLat expected = restService.nextPosition(origin, d * 22.5);
+            assertEquals(expected.getLongitude(), MoveLattice.toDegrees(MoveLattice.dx(d)), MoveLattice.UNIT);
+            assertEquals(expected.getLatitude(), MoveLattice.toDegrees(MoveLattice.dy(d)), MoveLattice.UNIT);
+        }
+    }
+
+    @Test
+    @DisplayName("Opposite and mirrored moves cancel exactly")
+    void tableIsSymmetric() {
+        for (int d = 0; d < MoveLattice.DIRECTIONS; d++) {
+            int opposite = (d + 8) % MoveLattice.DIRECTIONS;
+            assertEquals(0, MoveLattice.dx(d) + MoveLattice.dx(opposite));
+            assertEquals(0, MoveLattice.dy(d) + MoveLattice.dy(opposite));
+
+            // mirror in the east-west axis
+            int mirrored = (MoveLattice.DIRECTIONS - d) % MoveLattice.DIRECTIONS;
+            assertEquals(MoveLattice.dx(d), MoveLattice.dx(mirrored));
+            assertEquals(-MoveLattice.dy(d), MoveLattice.dy(mirrored));
+        }
+    }
+
+    @Test
+    @DisplayName("Move order does not change the lattice cell")
+    void cellIndependentOfMoveOrder() {
+        long x1 = MoveLattice.dx(1) + MoveLattice.dx(6) + MoveLattice.dx(11);
+        long y1 = MoveLattice.dy(1) + MoveLattice.dy(6) + MoveLattice.dy(11);
+        long x2 = MoveLattice.dx(11) + MoveLattice.dx(1) + MoveLattice.dx(6);
+        long y2 = MoveLattice.dy(11) + MoveLattice.dy(1) + MoveLattice.dy(6);
+
+        assertEquals(MoveLattice.cellKey(x1, y1), MoveLattice.cellKey(x2, y2));
+        assertEquals(MoveLattice.cellKey(0, 0),
+                MoveLattice.cellKey(MoveLattice.dx(3) + MoveLattice.dx(11), MoveLattice.dy(3) + MoveLattice.dy(11)));
+        assertNotEquals(MoveLattice.cellKey(0, 0), MoveLattice.cellKey(MoveLattice.dx(0), MoveLattice.dy(0)));
+    }
+
+    @Test
+    @DisplayName("In open space only the heading and its two neighbours follow a move")
+    void naturalSuccessorsTurnAtMostOneDirection() {
+        assertTrue(MoveLattice.isNaturalSuccessor(0, 0));
+        assertTrue(MoveLattice.isNaturalSuccessor(0, 1));
+        assertTrue(MoveLattice.isNaturalSuccessor(0, 15));
+        assertFalse(MoveLattice.isNaturalSuccessor(0, 2));
+        assertFalse(MoveLattice.isNaturalSuccessor(0, 8));
+        assertTrue(MoveLattice.isNaturalSuccessor(15, 0));
+        for (int direction = 0; direction < MoveLattice.DIRECTIONS; direction++) {
+            assertTrue(MoveLattice.isNaturalSuccessor(SearchNodes.NO_HEADING, direction));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OccupancyGrid
+ */
+@DisplayName("OccupancyGrid Unit Tests")
+public class OccupancyGridTest {
+
+    private static final double MOVE = 0.00015;
+
+    // square zone of 0.003 degrees (20 moves) per side
+    private static final double[] LNG = {0, 0.003, 0.003, 0};
+    private static final double[] LAT = {0, 0, 0.003, 0.003};
+    private static final int[] NEXT = {1, 2, 3, 0};
+
+    private static OccupancyGrid square() {
+        return OccupancyGrid.build(0, 0, 0.003, 0.003, LNG, LAT, NEXT,
+                (lng, lat) -> lng >= 0 && lng <= 0.003 && lat >= 0 && lat <= 0.003);
+    }
+
+    @Test
+    @DisplayName("Moves well clear of the zone are free")
+    void farMovesAreFree() {
+        OccupancyGrid grid = square();
+        assertEquals(OccupancyGrid.FREE, grid.classifyMove(-0.002, 0.0015, -0.002 + MOVE, 0.0015));
+        assertEquals(OccupancyGrid.FREE, grid.classifyMove(1.0, 1.0, 1.0, 1.0 + MOVE));
+    }
+
+    @Test
+    @DisplayName("Moves starting deep inside the zone are blocked")
+    void insideMovesAreBlocked() {
+        OccupancyGrid grid = square();
+        assertEquals(OccupancyGrid.BLOCKED, grid.classifyMove(0.0015, 0.0015, 0.0015 + MOVE, 0.0015));
+    }
+
+    @Test
+    @DisplayName("Moves near an edge are left to the exact geometry")
+    void boundaryMovesAreUnknown() {
+        OccupancyGrid grid = square();
+        assertEquals(OccupancyGrid.UNKNOWN, grid.classifyMove(-0.0001, 0.0015, -0.0001 + MOVE, 0.0015));
+        assertEquals(OccupancyGrid.UNKNOWN, grid.classifyMove(0.00001, 0.0015, 0.00001 - MOVE, 0.0015));
+        // long moves are never decided as free
+        assertEquals(OccupancyGrid.UNKNOWN, grid.classifyMove(-0.002, 0.0015, 0.005, 0.0015));
+    }
+
+    @Test
+    @DisplayName("Only points with no zone within a move are clear")
+    void clearPointsAreAwayFromTheZone() {
+        OccupancyGrid grid = square();
+        assertTrue(grid.isClear(-0.002, 0.0015));
+        assertTrue(grid.isClear(1.0, 1.0));
+        assertFalse(grid.isClear(-0.0001, 0.0015));
+        assertFalse(grid.isClear(0.0015, 0.0015));
+    }
+}
@@ -0,0 +1,161 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.PolygonColumns;
+import uk.ac.ed.inf.ilpcw1.data.Region;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PreparedObstacles
+ */
+@DisplayName("PreparedObstacles Unit Tests")
+public class PreparedObstaclesTest {
+
+    private final RestService restService = new RestService();
+
+    private static LngLat point(double lng, double lat) {
+        return LngLat.builder().longitude(lng).latitude(lat).build();
+    }
+
+    private static RestrictedArea area(String name, LngLat... vertices) {
+        return RestrictedArea.builder().name(name).vertices(List.of(vertices)).build();
+    }
+
+    private static List<RestrictedArea> edinburghAreas() {
+        return List.of(
+                area("George Square Area",
+                        point(-3.190578818321228, 55.94402412577528),
+                        point(-3.1899887323379517, 55.94284650540911),
+                        point(-3.187097311019897, 55.94328811724263),
+                        point(-3.187682032585144, 55.944477740393744),
+                        point(-3.190578818321228, 55.94402412577528)),
+                area("Dr Elsie Inglis Quadrangle",
+                        point(-3.1907182931900024, 55.94519570234043),
+                        point(-3.1906163692474365, 55.94498241796357),
+                        point(-3.1900262832641597, 55.94507554227258),
+                        point(-3.190133571624756, 55.94529783810495),
+                        point(-3.1907182931900024, 55.94519570234043)),
+                area("Bristo Square Open Area",
+                        point(-3.189543485641479, 55.94552313663306),
+                        point(-3.189382553100586, 55.94553214854692),
+                        point(-3.189259171485901, 55.94544803726933),
+                        point(-3.1892001628875732, 55.94533688994374),
+                        point(-3.189194798469543, 55.94519570234043),
+                        point(-3.189135789871216, 55.94511759833873),
+                        point(-3.188138008117676, 55.9452738061846),
+                        point(-3.1885510683059692, 55.946105902745614),
+                        point(-3.1895381212234497, 55.94555918427592),
+                        point(-3.189543485641479, 55.94552313663306)));
+    }
+
+    /**
+     * The per-region checks the search used before the geometry was prepared
+     */
+    private boolean blockedByRegions(LngLat from, LngLat to, List<RestrictedArea> areas) {
+        for (RestrictedArea area : areas) {
+            Region region = Region.builder().name(area.getName()).vertices(area.getVertices()).build();
+            if (restService.isInRegion(from, region) || restService.isInRegion(to, region)) {
+                return true;
+            }
+            List<LngLat> vertices = area.getVertices();
+            for (int i = 0; i < vertices.size(); i++) {
+                LngLat a = vertices.get(i);
+                LngLat b = vertices.get((i + 1) % vertices.size());
+                double d1 = direction(a, b, from);
+                double d2 = direction(a, b, to);
+                double d3 = direction(from, to, a);
+                double d4 = direction(from, to, b);
+                if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static double direction(LngLat p1, LngLat p2, LngLat p3) {
+        return (p3.getLongitude() - p1.getLongitude()) * (p2.getLatitude() - p1.getLatitude()) -
+                (p2.getLongitude() - p1.getLongitude()) * (p3.getLatitude() - p1.getLatitude());
+    }
+
+    @Test
+    @DisplayName("Blocks exactly the moves the per-region checks block")
+    void matchesPerRegionChecks() {
+        List<RestrictedArea> areas = edinburghAreas();
+        PreparedObstacles obstacles = PreparedObstacles.build(areas);
+        Random random = new Random(11);
+
+        int blocked = 0;
+        for (int i = 0; i < 20000; i++) {
+            LngLat from = point(-3.1920 + random.nextDouble() * 0.006, 55.9420 + random.nextDouble() * 0.005);
+            double angle = Math.toRadians(random.nextInt(16) * 22.5);
+            LngLat to = point(from.getLongitude() + 0.00015 * Math.cos(angle),
+                    from.getLatitude() + 0.00015 * Math.sin(angle));
+
+            boolean expected = blockedByRegions(from, to, areas);
+            assertEquals(expected, obstacles.blocks(from.getLongitude(), from.getLatitude(),
+                    to.getLongitude(), to.getLatitude()), "move from " + from + " to " + to);
+            blocked += expected ? 1 : 0;
+        }
+        assertTrue(blocked > 0);
+    }
+
+    @Test
+    @DisplayName("Vertices and edges count as inside")
+    void pointsOnTheBoundaryAreBlocked() {
+        PreparedObstacles obstacles = PreparedObstacles.build(List.of(
+                area("square", point(0, 0), point(1, 0), point(1, 1), point(0, 1))));
+
+        assertTrue(obstacles.isInAnyZone(0, 0));
+        assertTrue(obstacles.isInAnyZone(0.5, 0));
+        assertTrue(obstacles.isInAnyZone(0.5, 0.5));
+        assertFalse(obstacles.isInAnyZone(1.5, 0.5));
+        // crossing the whole square with both ends outside
+        assertTrue(obstacles.blocks(-0.5, 0.5, 1.5, 0.5));
+        assertFalse(obstacles.blocks(-0.5, 1.5, 1.5, 1.5));
+    }
+
+    @Test
+    @DisplayName("Columnar and object restricted areas prepare the same geometry")
+    void columnarInputMatchesObjects() {
+        List<RestrictedArea> areas = edinburghAreas();
+        PolygonColumns.Builder builder = new PolygonColumns.Builder(areas.size(), 20);
+        for (RestrictedArea area : areas) {
+            builder.begin();
+            builder.name(area.getName());
+            builder.vertices();
+            for (LngLat vertex : area.getVertices()) {
+                builder.vertex(vertex.getLongitude(), vertex.getLatitude());
+            }
+            builder.end();
+        }
+        List<RestrictedArea> columnList = builder.build().asList();
+        assertNotNull(PolygonColumns.backing(columnList));
+        assertNull(PolygonColumns.backing(areas));
+        PreparedObstacles fromColumns = PreparedObstacles.build(columnList);
+        PreparedObstacles fromObjects = PreparedObstacles.build(new ArrayList<>(areas));
+
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            double lng = -3.1920 + random.nextDouble() * 0.006;
+            double lat = 55.9420 + random.nextDouble() * 0.005;
+            assertEquals(fromObjects.isInAnyZone(lng, lat), fromColumns.isInAnyZone(lng, lat));
+        }
+    }
+
+    @Test
+    @DisplayName("No areas never block")
+    void emptyNeverBlocks() {
+        PreparedObstacles obstacles = PreparedObstacles.build(List.of());
+        assertTrue(obstacles.isEmpty());
+        assertFalse(obstacles.blocks(0, 0, 1, 1));
+    }
+}
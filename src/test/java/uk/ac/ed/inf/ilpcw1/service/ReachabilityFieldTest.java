@@ -0,0 +1,142 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.config.PathfindingProperties;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReachabilityField
+ */
+@DisplayName("ReachabilityField Unit Tests")
+public class ReachabilityFieldTest {
+
+    private static final double SOURCE_LNG = -3.1900;
+    private static final double SOURCE_LAT = 55.9445;
+
+    // square zone of 0.003 degrees (20 moves) per side, east of the source
+    private static final List<RestrictedArea> SQUARE = List.of(RestrictedArea.builder()
+            .name("square")
+            .vertices(List.of(
+                    new LngLat(-3.1880, 55.9430),
+                    new LngLat(-3.1850, 55.9430),
+                    new LngLat(-3.1850, 55.9460),
+                    new LngLat(-3.1880, 55.9460),
+                    new LngLat(-3.1880, 55.9430)))
+            .build());
+
+    @Test
+    @DisplayName("The bound behind a zone beats the straight distance without exceeding a path around it")
+    void boundIsTighterThanStraightAndNoLongerThanAPath() {
+        PreparedObstacles obstacles = PreparedObstacles.build(SQUARE);
+        ReachabilityField field = ReachabilityField.build(obstacles, SOURCE_LNG, SOURCE_LAT, 60);
+        VisibilityGraph.GoalDistances toSource = obstacles.visibilityGraph().distancesTo(SOURCE_LNG, SOURCE_LAT);
+
+        LngLat behind = new LngLat(-3.1830, 55.9445);
+        double straight = Math.hypot(behind.getLongitude() - SOURCE_LNG, behind.getLatitude() - SOURCE_LAT);
+        double bound = field.distanceAtLeast(behind.getLongitude(), behind.getLatitude());
+        assertTrue(bound > straight + 0.0005);
+
+        PathfindingProperties properties = new PathfindingProperties();
+        properties.setLegCacheMaxMoves(0);
+        List<LngLat> path = new PathfindingService(new RestService(), properties)
+                .findPath(new LngLat(SOURCE_LNG, SOURCE_LAT), behind, SQUARE);
+        assertTrue(bound <= (path.size() - 1) * 0.00015 + 0.00015);
+
+        // within the grid, near the zone and beyond the grid
+        for (int i = 0; i < 50; i++) {
+            double lng = -3.1920 + i * 0.0005;
+            for (double lat : new double[]{55.9420, 55.9431, 55.9445, 55.9470}) {
+                if (obstacles.isInAnyZone(lng, lat)) {
+                    continue;
+                }
+                double exact = obstacles.sees(lng, lat, SOURCE_LNG, SOURCE_LAT)
+                        ? Math.hypot(lng - SOURCE_LNG, lat - SOURCE_LAT)
+                        : toSource.fromHidden(lng, lat);
+                assertTrue(field.distanceAtLeast(lng, lat) <= exact + 1e-12);
+                // the bound also allows for ending anywhere within the close distance
+                assertTrue(field.distanceAtLeast(lng, lat) >= exact - 3 * 0.00015);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A goal in a pocket or behind a thin wall is bounded by the points by it the search can stop at")
+    void boundCoversTheCloseDistanceAroundTheGoal() {
+        // a box of walls 0.00003 thick with the goal 0.00005 inside its west wall
+        List<RestrictedArea> pocket = List.of(
+                wall("west", -3.18803, 55.94427, -3.1880, 55.94473),
+                wall("east", -3.1876, 55.94427, -3.18757, 55.94473),
+                wall("south", -3.18803, 55.94427, -3.18757, 55.9443),
+                wall("north", -3.18803, 55.9447, -3.18757, 55.94473));
+        assertTrue(Double.isFinite(assertBoundNoLongerThanPath(pocket, new LngLat(-3.18795, 55.9445))));
+
+        // a long wall 0.00003 thick with the goal 0.00005 beyond it
+        List<RestrictedArea> thinWall = List.of(wall("wall", -3.1880, 55.9425, -3.18797, 55.9465));
+        LngLat beyond = new LngLat(-3.18792, 55.9445);
+        double bound = assertBoundNoLongerThanPath(thinWall, beyond);
+        // points on this side of the wall are close enough
+        assertTrue(bound < Math.hypot(beyond.getLongitude() - SOURCE_LNG, beyond.getLatitude() - SOURCE_LAT));
+    }
+
+    private static double assertBoundNoLongerThanPath(List<RestrictedArea> zones, LngLat goal) {
+        PreparedObstacles obstacles = PreparedObstacles.build(zones);
+        ReachabilityField field = ReachabilityField.build(obstacles, SOURCE_LNG, SOURCE_LAT, 60);
+        double bound = field.distanceAtLeast(goal.getLongitude(), goal.getLatitude());
+
+        PathfindingProperties properties = new PathfindingProperties();
+        properties.setLegCacheMaxMoves(0);
+        List<LngLat> path = new PathfindingService(new RestService(), properties)
+                .findPath(new LngLat(SOURCE_LNG, SOURCE_LAT), goal, zones);
+        assertNotNull(path);
+        assertFalse(path.isEmpty());
+        assertTrue(bound <= (path.size() - 1) * 0.00015 + 1e-9);
+        return bound;
+    }
+
+    private static RestrictedArea wall(String name, double west, double south, double east, double north) {
+        return RestrictedArea.builder()
+                .name(name)
+                .vertices(List.of(
+                        new LngLat(west, south),
+                        new LngLat(east, south),
+                        new LngLat(east, north),
+                        new LngLat(west, north),
+                        new LngLat(west, south)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("The service reads the field once it is built, and the straight distance before")
+    void serviceUsesTheFieldOnceBuilt() throws InterruptedException {
+        PathfindingService service = new PathfindingService(new RestService());
+        LngLat source = new LngLat(SOURCE_LNG, SOURCE_LAT);
+        LngLat behind = new LngLat(-3.1830, 55.9445);
+        double straight = Math.hypot(behind.getLongitude() - SOURCE_LNG, behind.getLatitude() - SOURCE_LAT);
+
+        assertEquals(straight - 0.00015, service.flightDistanceAtLeast(source, behind, SQUARE));
+        service.prepareReachability(List.of(source), SQUARE, 60);
+        double bound = straight - 0.00015;
+        for (int i = 0; i < 500 && bound == straight - 0.00015; i++) {
+            Thread.sleep(10);
+            bound = service.flightDistanceAtLeast(source, behind, SQUARE);
+        }
+        assertTrue(bound > straight);
+        assertEquals(straight - 0.00015, service.flightDistanceAtLeast(source, behind, List.of()));
+    }
+
+    @Test
+    @DisplayName("Fields of zones replaced by a newer version are not built")
+    void replacedZonesGetNoField() {
+        PreparedObstacles zones = PreparedObstacles.build(SQUARE);
+        LngLat source = new LngLat(SOURCE_LNG, SOURCE_LAT);
+        zones.retire();
+        zones.buildReachabilityField(source, 60, Runnable::run);
+        assertNull(zones.builtReachabilityField(source));
+    }
+}
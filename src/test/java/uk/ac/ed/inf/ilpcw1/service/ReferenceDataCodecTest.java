@@ -0,0 +1,129 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ed.inf.ilpcw1.data.Drone;
+import uk.ac.ed.inf.ilpcw1.data.DroneAvailabilityDetails;
+import uk.ac.ed.inf.ilpcw1.data.DroneCapability;
+import uk.ac.ed.inf.ilpcw1.data.DroneServicePointRequest;
+import uk.ac.ed.inf.ilpcw1.data.DronesAtServicePoint;
+import uk.ac.ed.inf.ilpcw1.data.Limits;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+import uk.ac.ed.inf.ilpcw1.data.ServicePoints;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReferenceDataCodec
+ */
+@DisplayName("ReferenceDataCodec Unit Tests")
+public class ReferenceDataCodecTest {
+
+    private static ReferenceDataCodec.Persisted sample() {
+        List<Drone> drones = List.of(
+                new Drone("1", "Drone 1", new DroneCapability(true, false, 4.0, 2000, 0.01, 4.3, 6.5)),
+                new Drone("2", null, new DroneCapability(null, true, 8.0, null, 0.02, null, 1.0)),
+                new Drone("3", "No capability", null));
+        List<DroneServicePointRequest> availability = List.of(new DroneServicePointRequest(1, List.of(
+                new DronesAtServicePoint("1", List.of(
+                        new DroneAvailabilityDetails(DayOfWeek.MONDAY, LocalTime.of(0, 0), LocalTime.of(23, 59, 59)),
+                        new DroneAvailabilityDetails(null, null, LocalTime.NOON))),
+                new DronesAtServicePoint("2", null))));
+        List<ServicePoints> servicePoints = List.of(
+                new ServicePoints("Appleton Tower", 1, new LngLat(-3.186358, 55.944680)),
+                new ServicePoints("Ocean Terminal", 2, null));
+        List<RestrictedArea> restrictedAreas = List.of(new RestrictedArea("George Square Area", 1,
+                new Limits(0, -1),
+                List.of(new LngLat(-3.190578, 55.944024), new LngLat(-3.189988, 55.942846),
+                        new LngLat(-3.187097, 55.943288), new LngLat(-3.190578, 55.944024))));
+
+        return new ReferenceDataCodec.Persisted(7, Instant.ofEpochMilli(1_700_000_000_000L),
+                new UpstreamResource.Version<>("\"d1\"", null, new byte[]{1, 2, 3}, drones),
+                new UpstreamResource.Version<>(null, "Wed, 21 Oct 2015 07:28:00 GMT", new byte[32], availability),
+                new UpstreamResource.Version<>(null, null, new byte[0], servicePoints),
+                new UpstreamResource.Version<>("\"r1\"", "Wed, 21 Oct 2015 07:28:00 GMT", new byte[]{9}, restrictedAreas));
+    }
+
+    @Test
+    @DisplayName("Round trip preserves data, nulls and validators")
+    void roundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        ReferenceDataCodec.Persisted written = sample();
+
+        ReferenceDataCodec.write(file, written);
+        ReferenceDataCodec.Persisted read = ReferenceDataCodec.read(file);
+
+        assertEquals(written.version(), read.version());
+        assertEquals(written.fetchedAt(), read.fetchedAt());
+        assertEquals(written.drones().value(), read.drones().value());
+        assertEquals(written.availability().value(), read.availability().value());
+        assertEquals(written.servicePoints().value(), read.servicePoints().value());
+        assertEquals(written.restrictedAreas().value(), read.restrictedAreas().value());
+        assertEquals("\"d1\"", read.drones().etag());
+        assertNull(read.drones().lastModified());
+        assertArrayEquals(new byte[]{1, 2, 3}, read.drones().contentHash());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", read.availability().lastModified());
+    }
+
+    @Test
+    @DisplayName("Corrupted file is rejected")
+    void corruptedFileRejected(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        ReferenceDataCodec.write(file, sample());
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> ReferenceDataCodec.read(file));
+    }
+
+    @Test
+    @DisplayName("Truncated file is rejected")
+    void truncatedFileRejected(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        Files.write(file, new byte[]{0x49, 0x4C});
+
+        assertThrows(IOException.class, () -> ReferenceDataCodec.read(file));
+    }
+
+    @Test
+    @DisplayName("Overlapping writes leave a valid file and no temporary files")
+    void overlappingWrites(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("snapshot.bin");
+        List<Callable<Void>> writers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            writers.add(() -> {
+                for (int j = 0; j < 20; j++) {
+                    ReferenceDataCodec.write(file, sample());
+                }
+                return null;
+            });
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Void> done : executor.invokeAll(writers)) {
+                done.get();
+            }
+        }
+
+        assertEquals(7, ReferenceDataCodec.read(file).version());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.data.Drone;
+import uk.ac.ed.inf.ilpcw1.data.DroneColumns;
+import uk.ac.ed.inf.ilpcw1.data.PolygonColumns;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReferenceDataParser
+ */
+@DisplayName("ReferenceDataParser Unit Tests")
+public class ReferenceDataParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final String DRONES = """
+            [{"id":"1","name":"Drone 1","capability":{"cooling":true,"heating":false,"capacity":4.0,
+              "maxMoves":2000,"costPerMove":0.01,"costInitial":4.3,"costFinal":6.5}},
+             {"id":2,"name":null,"extra":{"nested":[1,2,3]},"capability":{"cooling":null,"heating":true,
+              "capacity":"8","maxMoves":1000,"costPerMove":0.02,"costFinal":1}},
+             {"id":"3","name":"No capability","capability":null},
+             {"id":"4","name":"Missing capability"}]""";
+
+    private static final String RESTRICTED_AREAS = """
+            [{"name":"George Square Area","id":1,"limits":{"lower":0,"upper":-1},"vertices":[
+              {"lng":-3.190578,"lat":55.944024},{"lng":-3.189988,"lat":55.942846},
+              {"lng":-3.187097,"lat":55.943288},{"lng":-3.190578,"lat":55.944024}]},
+             {"name":"No limits","id":2,"vertices":[{"lng":-3.1,"lat":55.9,"alt":10},{"lng":-3.2,"lat":55.8}]},
+             {"name":"No vertices","id":null,"limits":{"lower":5},"vertices":null},
+             {"name":"Empty","id":4,"vertices":[]}]""";
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Drones parse to the same beans as Jackson data binding")
+    void dronesMatchDataBinding() throws IOException {
+        List<Drone> expected = Arrays.asList(objectMapper.readValue(DRONES, Drone[].class));
+
+        DroneColumns columns = ReferenceDataParser.parseDrones(objectMapper.getFactory(), bytes(DRONES));
+
+        assertEquals(expected, columns.asList());
+        assertEquals(4, columns.size());
+        assertEquals(8.0, columns.capacity(1));
+        assertEquals(DroneColumns.NULL_BOOLEAN, columns.cooling(1));
+        assertTrue(Double.isNaN(columns.costInitial(1)));
+        assertFalse(columns.hasCapability(2));
+    }
+
+    @Test
+    @DisplayName("Restricted areas parse to the same beans as Jackson data binding")
+    void restrictedAreasMatchDataBinding() throws IOException {
+        List<RestrictedArea> expected = Arrays.asList(objectMapper.readValue(RESTRICTED_AREAS, RestrictedArea[].class));
+
+        PolygonColumns columns = ReferenceDataParser.parseRestrictedAreas(objectMapper.getFactory(), bytes(RESTRICTED_AREAS));
+
+        assertEquals(expected, columns.asList());
+        assertEquals(6, columns.vertexCount());
+        assertEquals(4, columns.vertexStart(1));
+        assertEquals(6, columns.vertexEnd(1));
+        assertEquals(-3.2, columns.lng(5));
+        assertFalse(columns.hasVertices(2));
+        assertTrue(columns.hasVertices(3));
+    }
+
+    @Test
+    @DisplayName("Lazily created beans are created once and the list is read-only")
+    void lazyBeansAreStable() throws IOException {
+        List<Drone> drones = ReferenceDataParser.parseDrones(objectMapper.getFactory(), bytes(DRONES)).asList();
+
+        assertSame(drones.get(0), drones.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> drones.set(0, new Drone()));
+    }
+
+    @Test
+    @DisplayName("Columns are recovered from a parsed list and built from plain beans")
+    void columnsFromLists() throws IOException {
+        DroneColumns parsed = ReferenceDataParser.parseDrones(objectMapper.getFactory(), bytes(DRONES));
+        assertSame(parsed, DroneColumns.of(parsed.asList()));
+
+        List<Drone> beans = Arrays.asList(objectMapper.readValue(DRONES, Drone[].class));
+        assertEquals(beans, DroneColumns.of(beans).asList());
+
+        List<RestrictedArea> areas = Arrays.asList(objectMapper.readValue(RESTRICTED_AREAS, RestrictedArea[].class));
+        assertEquals(areas, PolygonColumns.of(areas).asList());
+    }
+
+    @Test
+    @DisplayName("Empty and null bodies parse to empty columns; malformed bodies are rejected")
+    void emptyAndMalformedBodies() throws IOException {
+        assertEquals(0, ReferenceDataParser.parseDrones(objectMapper.getFactory(), bytes("[]")).size());
+        assertEquals(0, ReferenceDataParser.parseRestrictedAreas(objectMapper.getFactory(), bytes("null")).size());
+        assertThrows(IOException.class,
+                () -> ReferenceDataParser.parseDrones(objectMapper.getFactory(), bytes("{\"id\":\"1\"}")));
+        assertThrows(IOException.class,
+                () -> ReferenceDataParser.parseRestrictedAreas(objectMapper.getFactory(), bytes("[{\"vertices\":{}}]")));
+    }
+}
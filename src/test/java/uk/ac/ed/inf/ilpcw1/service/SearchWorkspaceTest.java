@@ -0,0 +1,45 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SearchWorkspace and its pool
+ */
+@DisplayName("SearchWorkspace Unit Tests")
+public class SearchWorkspaceTest {
+
+    @Test
+    @DisplayName("A released workspace is reset and handed out again")
+    void releasedWorkspaceIsReused() {
+        SearchWorkspace.Pool pool = new SearchWorkspace.Pool(2);
+        SearchWorkspace workspace = pool.acquire();
+        int id = workspace.nodes().add(1, 2, 1);
+        workspace.visited().put(MoveLattice.cellKey(1, 2), id);
+        workspace.open().insert(id, 1);
+        pool.release(workspace);
+
+        assertEquals(1, pool.idleCount());
+        SearchWorkspace reused = pool.acquire();
+        assertSame(workspace, reused);
+        assertEquals(0, reused.nodes().size());
+        assertEquals(-1, reused.visited().get(MoveLattice.cellKey(1, 2), -1));
+        assertTrue(reused.open().isEmpty());
+        assertNotSame(reused, pool.acquire());
+    }
+
+    @Test
+    @DisplayName("The pool keeps at most its bound of idle workspaces")
+    void poolIsBounded() {
+        SearchWorkspace.Pool pool = new SearchWorkspace.Pool(1);
+        pool.release(new SearchWorkspace());
+        pool.release(new SearchWorkspace());
+        assertEquals(1, pool.idleCount());
+
+        SearchWorkspace.Pool disabled = new SearchWorkspace.Pool(0);
+        disabled.release(new SearchWorkspace());
+        assertEquals(0, disabled.idleCount());
+    }
+}
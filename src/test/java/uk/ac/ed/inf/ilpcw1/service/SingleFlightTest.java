@@ -0,0 +1,104 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SingleFlight
+ */
+@DisplayName("SingleFlight Unit Tests")
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Concurrent callers share one execution")
+    void concurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ZERO);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> flight.execute("drones", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                return 42;
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> flight.execute("drones", () -> {
+                    executions.incrementAndGet();
+                    return -1;
+                })));
+            }
+            // give the joiners time to attach to the in-flight call
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(7, flight.coalescedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Without a freshness window sequential calls execute again")
+    void sequentialCallsExecuteAgain() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ZERO);
+        AtomicInteger executions = new AtomicInteger();
+
+        flight.execute("drones", executions::incrementAndGet);
+        flight.execute("drones", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    @DisplayName("Freshness window reuses a completed result")
+    void freshnessWindowReusesResult() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofMinutes(1));
+        AtomicInteger executions = new AtomicInteger();
+
+        assertEquals(1, flight.execute("drones", executions::incrementAndGet));
+        assertEquals(1, flight.execute("drones", executions::incrementAndGet));
+        assertEquals(2, flight.execute("service-points", executions::incrementAndGet));
+    }
+
+    @Test
+    @DisplayName("Failures propagate and are not cached")
+    void failuresAreNotCached() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("drones", () -> {
+            throw new IllegalStateException("upstream down");
+        }));
+        assertEquals(7, flight.execute("drones", () -> 7));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.config.StandInProperties;
+import uk.ac.ed.inf.ilpcw1.data.DronesAtServicePoint;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+import uk.ac.ed.inf.ilpcw1.data.ServicePoints;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SyntheticIlpDataGenerator
+ */
+@DisplayName("SyntheticIlpDataGenerator Unit Tests")
+public class SyntheticIlpDataGeneratorTest {
+
+    private static StandInProperties properties(long seed) {
+        StandInProperties properties = new StandInProperties();
+        properties.setSeed(seed);
+        properties.setDrones(200);
+        properties.setServicePoints(5);
+        properties.setRestrictedAreas(30);
+        properties.setVerticesPerArea(12);
+        return properties;
+    }
+
+    @Test
+    @DisplayName("Same seed produces the same data, a different seed different data")
+    void seededAndDeterministic() {
+        SyntheticIlpDataGenerator.Dataset first = new SyntheticIlpDataGenerator(properties(7)).generate();
+        SyntheticIlpDataGenerator.Dataset second = new SyntheticIlpDataGenerator(properties(7)).generate();
+        SyntheticIlpDataGenerator.Dataset other = new SyntheticIlpDataGenerator(properties(8)).generate();
+
+        assertEquals(first, second);
+        assertNotEquals(first.drones(), other.drones());
+    }
+
+    @Test
+    @DisplayName("Generated sizes follow the configuration and every drone has one home")
+    void sizesAndHomes() {
+        SyntheticIlpDataGenerator.Dataset dataset = new SyntheticIlpDataGenerator(properties(1)).generate();
+
+        assertEquals(200, dataset.drones().size());
+        assertEquals(5, dataset.servicePoints().size());
+        assertEquals(30, dataset.restrictedAreas().size());
+        assertEquals(5, dataset.availability().size());
+
+        Set<String> homed = new HashSet<>();
+        dataset.availability().forEach(sp -> sp.getDrones().stream()
+                .map(DronesAtServicePoint::getId)
+                .forEach(id -> assertTrue(homed.add(id), "drone " + id + " homed twice")));
+        assertEquals(200, homed.size());
+    }
+
+    @Test
+    @DisplayName("Restricted areas are closed polygons that do not cover service points")
+    void restrictedAreasAreClosedAndClear() {
+        SyntheticIlpDataGenerator.Dataset dataset = new SyntheticIlpDataGenerator(properties(3)).generate();
+        RestService restService = new RestService();
+
+        for (RestrictedArea area : dataset.restrictedAreas()) {
+            List<LngLat> vertices = area.getVertices();
+            assertEquals(13, vertices.size());
+            assertEquals(vertices.getFirst(), vertices.getLast());
+            for (ServicePoints sp : dataset.servicePoints()) {
+                assertFalse(restService.isInRegionRestrictedArea(sp.getLocation(), area));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package uk.ac.ed.inf.ilpcw1.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilpcw1.config.PathfindingProperties;
+import uk.ac.ed.inf.ilpcw1.data.LngLat;
+import uk.ac.ed.inf.ilpcw1.data.RestrictedArea;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VisibilityGraph
+ */
+@DisplayName("VisibilityGraph Unit Tests")
+public class VisibilityGraphTest {
+
+    private static LngLat point(double lng, double lat) {
+        return LngLat.builder().longitude(lng).latitude(lat).build();
+    }
+
+    // closed square from (0, 0) to (1, 1), as restricted areas are served
+    private static PreparedObstacles square() {
+        return PreparedObstacles.build(List.of(RestrictedArea.builder()
+                .name("square")
+                .vertices(List.of(point(0, 0), point(1, 0), point(1, 1), point(0, 1), point(0, 0)))
+                .build()));
+    }
+
+    // closed polygon of the given number of distinct vertices round a circle of radius 0.01 at (0, 0)
+    private static PreparedObstacles circle(int vertices) {
+        List<LngLat> ring = new ArrayList<>();
+        for (int i = 0; i <= vertices; i++) {
+            double angle = 2 * Math.PI * (i % vertices) / vertices;
+            ring.add(point(0.01 * Math.cos(angle), 0.01 * Math.sin(angle)));
+        }
+        return PreparedObstacles.build(List.of(RestrictedArea.builder().name("circle").vertices(ring).build()));
+    }
+
+    @Test
+    @DisplayName("Repeated closing vertex is dropped and the diagonals are not visible")
+    void graphOverSquare() {
+        VisibilityGraph graph = square().visibilityGraph();
+        assertEquals(4, graph.size());
+
+        // opposite corners only connect around the square
+        VisibilityGraph.GoalDistances toTopRight = graph.distancesTo(1, 1);
+        assertEquals(Math.hypot(1.1, 0.2) + 1, toTopRight.fromHidden(-0.1, -0.2), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Distance behind the square goes around a corner")
+    void distanceAroundTheSquare() {
+        VisibilityGraph.GoalDistances toRight = square().visibilityGraph().distancesTo(2, 0.5);
+
+        double expected = Math.hypot(1, 0.5) + 1 + Math.hypot(1, 0.5);
+        assertEquals(expected, toRight.fromHidden(-1, 0.5), 1e-12);
+        assertTrue(toRight.fromHidden(-1, 0.5) > 3);
+    }
+
+    @Test
+    @DisplayName("Route from a hidden point passes the corners of the square")
+    void routeAroundTheSquare() {
+        double[][] route = square().visibilityGraph().distancesTo(2, 0.5).routeFrom(-1, 0.5);
+
+        assertNotNull(route);
+        assertEquals(4, route[0].length);
+        assertEquals(-1, route[0][0]);
+        assertEquals(0, route[0][1]);
+        assertEquals(1, route[0][2]);
+        assertEquals(2, route[0][3]);
+        assertEquals(route[1][1], route[1][2]);
+    }
+
+    @Test
+    @DisplayName("Behind a thin wall the detour heuristic finds paths as short as the plain search")
+    void goalsBehindAThinWall() {
+        // a wall 0.00003 thick across the way east, with goals close enough beyond it to be reached from this side
+        List<RestrictedArea> wall = List.of(RestrictedArea.builder()
+                .name("wall")
+                .vertices(List.of(point(-3.1880, 55.9425), point(-3.18797, 55.9425), point(-3.18797, 55.9465),
+                        point(-3.1880, 55.9465), point(-3.1880, 55.9425)))
+                .build());
+        LngLat start = point(-3.1900, 55.9445);
+        PathfindingService detour = new PathfindingService(new RestService(), searchProperties(true));
+        PathfindingService plain = new PathfindingService(new RestService(), searchProperties(false));
+
+        for (double beyond : new double[]{0.00005, 0.0001}) {
+            for (double offset : new double[]{-0.0004, 0, 0.0007}) {
+                LngLat goal = point(-3.18797 + beyond, 55.9445 + offset);
+                PathResult searched = detour.searchPath(start, goal, wall, detour.defaultBudget());
+                PathResult expected = plain.searchPath(start, goal, wall, plain.defaultBudget());
+                assertTrue(searched.complete());
+                assertEquals(expected.path().size(), searched.path().size());
+            }
+        }
+    }
+
+    private static PathfindingProperties searchProperties(boolean visibilityHeuristic) {
+        PathfindingProperties properties = new PathfindingProperties();
+        properties.setVisibilityHeuristic(visibilityHeuristic);
+        properties.setLegCacheMaxMoves(0);
+        properties.setDirectLegs(false);
+        properties.setReachabilityFields(false);
+        return properties;
+    }
+
+    @Test
+    @DisplayName("A large graph is built in the background, with plain distances used until it is ready")
+    void largeGraphIsBuiltInTheBackground() {
+        PreparedObstacles obstacles = circle(VisibilityGraph.PREPARED_VERTICES + 50);
+        Queue<Runnable> background = new ArrayDeque<>();
+        obstacles.buildVisibilityGraph(background::add);
+
+        assertEquals(1, background.size());
+        assertNull(obstacles.builtVisibilityGraph());
+        assertFalse(LegHeuristic.forLeg(-0.02, 0, 0.02, 0, obstacles, true, false).isDetour());
+
+        background.remove().run();
+        assertEquals(VisibilityGraph.PREPARED_VERTICES + 50, obstacles.builtVisibilityGraph().size());
+        assertTrue(LegHeuristic.forLeg(-0.02, 0, 0.02, 0, obstacles, true, false).isDetour());
+
+        // starting it again does nothing
+        obstacles.buildVisibilityGraph(background::add);
+        assertTrue(background.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Zones with too many vertices get no graph")
+    void tooManyVerticesForAGraph() {
+        PreparedObstacles obstacles = circle(VisibilityGraph.MAX_VERTICES + 1);
+
+        assertNull(obstacles.visibilityGraph());
+        assertNull(LandmarkDistances.build(obstacles));
+        assertFalse(LegHeuristic.forLeg(-0.02, 0, 0.02, 0, obstacles, true, false).isDetour());
+    }
+}